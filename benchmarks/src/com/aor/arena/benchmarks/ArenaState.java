@@ -0,0 +1,133 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.controller.GameController;
+import com.aor.arena.model.GameModel;
+import com.aor.arena.model.entities.AsteroidModel;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.aor.arena.controller.GameController.ARENA_HEIGHT;
+import static com.aor.arena.controller.GameController.ARENA_WIDTH;
+
+/**
+ * A fresh arena populated with a parameterized number of asteroids.
+ */
+@State(Scope.Thread)
+public class ArenaState {
+    /**
+     * Duration of a simulation tick in seconds.
+     */
+    static final float DELTA = 1 / 60f;
+
+    /**
+     * Number of asteroids in the arena when the trial starts.
+     */
+    @Param({"100", "1000", "10000"})
+    public int asteroidCount;
+
+    /**
+     * Should bullets be traced instead of simulated by Box2D.
+     */
+    @Param({"false", "true"})
+    public boolean lightweightBullets;
+
+    /**
+     * The game model being benchmarked.
+     */
+    GameModel model;
+
+    /**
+     * The game controller being benchmarked.
+     */
+    GameController controller;
+
+    /**
+     * Random number generator with a fixed seed so every trial starts from the same arena.
+     */
+    final Random random = new Random(42);
+
+    /**
+     * Creates a new arena with asteroidCount asteroids of random sizes.
+     */
+    @Setup(Level.Trial)
+    public void createArena() {
+        model = new GameModel();
+        for (AsteroidModel asteroid : new ArrayList<AsteroidModel>(model.getAsteroids()))
+            model.remove(asteroid);
+        for (int i = 0; i < asteroidCount; i++)
+            model.addAsteroid(randomAsteroid());
+
+        controller = new GameController(model);
+        controller.setLightweightBullets(lightweightBullets);
+    }
+
+    /**
+     * Disposes of the arena.
+     */
+    @TearDown(Level.Trial)
+    public void disposeArena() {
+        controller.dispose();
+    }
+
+    /**
+     * Creates an asteroid model in a random position.
+     *
+     * @return the asteroid model
+     */
+    AsteroidModel randomAsteroid() {
+        return new AsteroidModel(
+                random.nextFloat() * ARENA_WIDTH,
+                random.nextFloat() * ARENA_HEIGHT,
+                random.nextFloat() * 6.28f,
+                random.nextBoolean() ? AsteroidModel.AsteroidSize.BIG : AsteroidModel.AsteroidSize.MEDIUM);
+    }
+
+    /**
+     * Fires bullets from the ship ignoring the gun cool down.
+     *
+     * @param count the number of bullets to fire
+     */
+    void fire(int count) {
+        for (int i = 0; i < count; i++)
+            controller.fire();
+    }
+
+    /**
+     * Fires bullets placed directly on top of random asteroids so that
+     * each one of them collides during the next world step.
+     *
+     * @param count the number of bullets to fire
+     */
+    void fireAtAsteroids(int count) {
+        List<AsteroidModel> asteroids = model.getAsteroids();
+        for (int i = 0; i < count && !asteroids.isEmpty(); i++) {
+            AsteroidModel target = asteroids.get(random.nextInt(asteroids.size()));
+            controller.fire(target.getX(), target.getY(), 0);
+        }
+    }
+
+    /**
+     * Brings the number of asteroids back to asteroidCount by removing
+     * the excess asteroids or by adding new ones. Used by benchmarks
+     * that destroy or create asteroids so every invocation sees a
+     * similar arena.
+     */
+    void restorePopulation() {
+        List<AsteroidModel> asteroids = model.getAsteroids();
+        for (int i = asteroidCount; i < asteroids.size(); i++)
+            model.flagForRemoval(asteroids.get(i));
+        controller.removeFlagged();
+
+        for (int i = asteroids.size(); i < asteroidCount; i++)
+            controller.addAsteroid(randomAsteroid());
+        controller.createNewAsteroids();
+    }
+}
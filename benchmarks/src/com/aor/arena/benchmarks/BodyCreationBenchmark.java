@@ -0,0 +1,95 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.controller.entities.BigAsteroidBody;
+import com.aor.arena.controller.entities.BulletBody;
+import com.aor.arena.controller.entities.MediumAsteroidBody;
+import com.aor.arena.controller.entities.ShipBody;
+import com.aor.arena.model.entities.AsteroidModel;
+import com.aor.arena.model.entities.BulletModel;
+import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of brand new bodies of each type, bypassing
+ * the body pool. This is the cost paid while the pools are cold,
+ * e.g. during the first asteroid fragmentation bursts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BodyCreationBenchmark {
+    /**
+     * An empty world.
+     */
+    private World world;
+
+    /**
+     * Used to find the body created by each invocation.
+     */
+    private final Array<Body> bodies = new Array<Body>();
+
+    private final AsteroidModel bigAsteroid = new AsteroidModel(10, 10, 0, AsteroidModel.AsteroidSize.BIG);
+    private final AsteroidModel mediumAsteroid = new AsteroidModel(10, 10, 0, AsteroidModel.AsteroidSize.MEDIUM);
+    private final BulletModel bullet = new BulletModel(10, 10, 0);
+    private final ShipModel ship = new ShipModel(10, 10, 0);
+
+    @Setup(Level.Iteration)
+    public void createWorld() {
+        world = new World(new Vector2(0, 0), true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void disposeWorld() {
+        world.dispose();
+    }
+
+    /**
+     * Destroys the body created by the invocation so the world stays empty.
+     */
+    @TearDown(Level.Invocation)
+    public void destroyBodies() {
+        world.getBodies(bodies);
+        for (Body body : bodies)
+            world.destroyBody(body);
+    }
+
+    @Benchmark
+    public Object bigAsteroid() {
+        return new BigAsteroidBody(world, bigAsteroid);
+    }
+
+    @Benchmark
+    public Object mediumAsteroid() {
+        return new MediumAsteroidBody(world, mediumAsteroid);
+    }
+
+    @Benchmark
+    public Object bullet() {
+        return new BulletBody(world, bullet);
+    }
+
+    @Benchmark
+    public Object ship() {
+        return new ShipBody(world, ship);
+    }
+}
@@ -0,0 +1,112 @@
+package com.aor.arena.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bursts of bullet asteroid collisions and the work they
+ * trigger: removal of the flagged entities and creation of the
+ * asteroid fragments.
+ *
+ * Each invocation needs its own burst so these benchmarks use
+ * per invocation fixtures. Results include the fixture noise
+ * described in Level.Invocation and are meant to be compared
+ * between releases rather than read as absolute numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CollisionBenchmark {
+    /**
+     * An arena that gets a burst of bullets before each invocation.
+     *
+     * The burst fixtures extend the arena instead of depending on it.
+     * Otherwise JMH would create more than one arena per thread.
+     */
+    public static abstract class Burst extends ArenaState {
+        /**
+         * Number of bullets hitting asteroids in each burst.
+         */
+        @Param({"1", "10", "100"})
+        public int bulletRate;
+
+        /**
+         * Restores the asteroid population after each invocation.
+         */
+        @TearDown(Level.Invocation)
+        public void restore() {
+            controller.removeFlagged();
+            controller.createNewAsteroids();
+            restorePopulation();
+        }
+    }
+
+    /**
+     * Bullets placed on top of asteroids, ready to collide on the next step.
+     */
+    @State(Scope.Thread)
+    public static class Armed extends Burst {
+        @Setup(Level.Invocation)
+        public void arm() {
+            fireAtAsteroids(bulletRate);
+        }
+    }
+
+    /**
+     * Asteroids and bullets flagged for removal and fragments waiting to be created.
+     */
+    @State(Scope.Thread)
+    public static class Collided extends Burst {
+        @Setup(Level.Invocation)
+        public void collide() {
+            fireAtAsteroids(bulletRate);
+            controller.update(DELTA);
+        }
+    }
+
+    /**
+     * A world step where every bullet of the burst hits an asteroid,
+     * going through beginContact and bulletAsteroidCollision.
+     *
+     * @param arena the armed arena
+     */
+    @Benchmark
+    public void beginContact(Armed arena) {
+        arena.controller.update(ArenaState.DELTA);
+    }
+
+    /**
+     * Removal of the entities flagged by a burst.
+     *
+     * @param arena the collided arena
+     */
+    @Benchmark
+    public void removeFlagged(Collided arena) {
+        arena.controller.removeFlagged();
+    }
+
+    /**
+     * Creation of the fragments of the big asteroids hit by a burst.
+     *
+     * @param arena the collided arena
+     */
+    @Benchmark
+    public void createNewAsteroids(Collided arena) {
+        arena.controller.createNewAsteroids();
+    }
+}
@@ -0,0 +1,64 @@
+package com.aor.arena.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a simulation frame: the world step plus the
+ * per body bounds verification and model synchronization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ControllerUpdateBenchmark {
+    /**
+     * An arena whose ship fires a number of bullets on every frame.
+     *
+     * The firing fixture extends the arena instead of depending on it.
+     * Otherwise JMH would create more than one arena per thread.
+     */
+    @State(Scope.Thread)
+    public static class Firing extends ArenaState {
+        /**
+         * Number of bullets fired per frame.
+         */
+        @Param({"0", "1", "10"})
+        public int bulletRate;
+    }
+
+    /**
+     * GameController.update alone.
+     *
+     * @param arena the arena being simulated
+     */
+    @Benchmark
+    public void update(ArenaState arena) {
+        arena.controller.update(ArenaState.DELTA);
+    }
+
+    /**
+     * A complete frame with a ship firing: the bullets are fired and
+     * the arena is updated by one step, which removes the flagged
+     * entities and creates the asteroid fragments itself, as each step
+     * of the simulation thread does.
+     *
+     * @param arena the arena being simulated
+     */
+    @Benchmark
+    public void frame(Firing arena) {
+        arena.fire(arena.bulletRate);
+        arena.controller.update(ArenaState.DELTA);
+    }
+}
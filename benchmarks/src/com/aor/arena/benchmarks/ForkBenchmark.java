@@ -0,0 +1,84 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.controller.ArenaFork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures forking an arena into a shadow arena once per frame, as
+ * done by look ahead and rollback, with and without simulating ahead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ForkBenchmark {
+    /**
+     * An arena and its shadow, left where the previous look ahead ended.
+     */
+    @State(Scope.Thread)
+    public static class Forked extends ArenaState {
+        /**
+         * Number of steps simulated ahead after each fork.
+         */
+        @Param({"10", "60"})
+        public int lookAhead;
+
+        /**
+         * The shadow arena.
+         */
+        ArenaFork fork;
+
+        /**
+         * Creates the shadow arena.
+         */
+        @Setup(Level.Trial)
+        public void createFork() {
+            fork = new ArenaFork(controller);
+            controller.getInput().setShooting(true);
+        }
+
+        /**
+         * Advances the game by one frame, as it would between forks,
+         * and the shadow by the look ahead of the previous fork.
+         */
+        @Setup(Level.Invocation)
+        public void advance() {
+            controller.step();
+            fork.simulate(lookAhead);
+        }
+
+        /**
+         * Disposes of the shadow arena.
+         */
+        @TearDown(Level.Trial)
+        public void disposeFork() {
+            fork.dispose();
+        }
+    }
+
+    @Benchmark
+    public void fork(Forked arena) {
+        arena.fork.fork(arena.controller);
+    }
+
+    @Benchmark
+    public void forkAndLookAhead(Forked arena) {
+        arena.fork.fork(arena.controller);
+        arena.fork.simulate(arena.lookAhead);
+    }
+}
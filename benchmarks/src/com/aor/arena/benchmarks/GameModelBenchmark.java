@@ -0,0 +1,84 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.model.GameModel;
+import com.aor.arena.model.entities.BulletModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the model side of firing: creating bullets from the pool
+ * and removing the oldest ones, as happens when their time to live
+ * expires, while a number of other bullets are alive.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GameModelBenchmark {
+    /**
+     * Number of bullets alive in the model.
+     */
+    @Param({"10", "1000", "10000"})
+    public int liveBullets;
+
+    /**
+     * Number of bullets created and removed per invocation.
+     */
+    @Param({"1", "10"})
+    public int bulletRate;
+
+    /**
+     * The model being benchmarked.
+     */
+    private GameModel model;
+
+    /**
+     * The live bullets, oldest first.
+     */
+    private final ArrayDeque<BulletModel> alive = new ArrayDeque<BulletModel>();
+
+    /**
+     * Creates a model with liveBullets bullets.
+     */
+    @Setup(Level.Trial)
+    public void createModel() {
+        model = new GameModel();
+        for (int i = 0; i < liveBullets; i++)
+            alive.addLast(model.createBullet(model.getShip()));
+    }
+
+    /**
+     * Disposes of the model.
+     */
+    @TearDown(Level.Trial)
+    public void disposeModel() {
+        alive.clear();
+    }
+
+    /**
+     * Creates bulletRate bullets and removes the bulletRate oldest ones.
+     */
+    @Benchmark
+    public void createAndRemoveBullets() {
+        for (int i = 0; i < bulletRate; i++)
+            alive.addLast(model.createBullet(model.getShip()));
+        for (int i = 0; i < bulletRate; i++)
+            model.remove(alive.removeFirst());
+    }
+}
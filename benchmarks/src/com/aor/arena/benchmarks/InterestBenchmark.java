@@ -0,0 +1,236 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.controller.GameController;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.GameModel;
+import com.aor.arena.model.entities.ShipModel;
+import com.aor.arena.network.DeltaCodec;
+import com.aor.arena.network.EntitySelection;
+import com.aor.arena.network.InterestFilter;
+import com.aor.arena.network.QuantizedState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.aor.arena.controller.GameController.ARENA_HEIGHT;
+import static com.aor.arena.controller.GameController.ARENA_WIDTH;
+
+/**
+ * Measures the cost of the snapshots an arena server sends after each
+ * step: capturing the state of the arena and sorting it by cell, which
+ * is done once per step, and encoding it for every client, either whole
+ * or filtered by the interest of each client. Stepping the arena is not
+ * measured.
+ *
+ * Arenas of several sizes are measured at the same density, so the
+ * cost of the filtered snapshots should only grow with the clients
+ * and the density, while the cost of whole snapshots also grows with
+ * the size of the arena. Capturing grows with the size of the arena,
+ * but not with the clients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InterestBenchmark {
+    /**
+     * The least distance between the initial asteroids in meters, so
+     * dense arenas do not start with asteroids pushing each other apart.
+     */
+    private static final float ASTEROID_SPACING = 3;
+
+    /**
+     * An arena with a ship for each client and the snapshots of the
+     * previous step, the base of the next ones. The asteroids grow with
+     * the area of the arena, so arenas of every size have the same
+     * density of asteroids around each ship.
+     */
+    @State(Scope.Thread)
+    public static class Clients {
+        /**
+         * Number of connected clients.
+         */
+        @Param({"8", "32"})
+        public int clientCount;
+
+        /**
+         * How many times the default arena is wider and higher.
+         */
+        @Param({"1", "2", "4", "8"})
+        public int arenaScale;
+
+        /**
+         * Asteroids per square meter. The default arena has 0.02.
+         */
+        @Param({"0.02", "0.05"})
+        public float density;
+
+        /**
+         * The game model of the arena.
+         */
+        GameModel model;
+
+        /**
+         * The game controller of the arena.
+         */
+        GameController controller;
+
+        /**
+         * Random number generator with a fixed seed so every trial starts from the same arena.
+         */
+        final Random random = new Random(42);
+
+        /**
+         * The ship of each client.
+         */
+        ShipModel[] ships;
+
+        /**
+         * The snapshots of the arena, alternating between steps.
+         */
+        QuantizedState[] worlds;
+
+        /**
+         * The entities selected for each client, alternating between steps.
+         */
+        EntitySelection[][] views;
+
+        /**
+         * Selects the entities of each client.
+         */
+        InterestFilter interest;
+
+        /**
+         * Where snapshots are encoded.
+         */
+        final ByteBuffer buffer = ByteBuffer.allocate(4 << 20);
+
+        /**
+         * Number of steps simulated.
+         */
+        int tick;
+
+        /**
+         * Creates the arena and adds the ships of the clients.
+         */
+        @Setup(Level.Trial)
+        public void createArena() {
+            ArenaConfig config = new ArenaConfig();
+            config.setWidth(ARENA_WIDTH * arenaScale);
+            config.setHeight(ARENA_HEIGHT * arenaScale);
+            config.setAsteroidCount(Math.round(density * config.getWidth() * config.getHeight()));
+            config.setAsteroidSpacing(ASTEROID_SPACING);
+            config.validate();
+
+            model = new GameModel(config, 42);
+            controller = new GameController(model);
+
+            worlds = new QuantizedState[] {new QuantizedState(config.getWidth(), config.getHeight()), new QuantizedState(config.getWidth(), config.getHeight())};
+            interest = new InterestFilter(config.getWidth(), config.getHeight());
+
+            ships = new ShipModel[clientCount];
+            views = new EntitySelection[clientCount][];
+            for (int i = 0; i < clientCount; i++) {
+                ships[i] = controller.addShip(random.nextFloat() * config.getWidth(), random.nextFloat() * config.getHeight());
+                views[i] = new EntitySelection[] {new EntitySelection(), new EntitySelection()};
+            }
+            worlds[0].capture(model.getStore(), tick);
+        }
+
+        /**
+         * Disposes of the arena.
+         */
+        @TearDown(Level.Trial)
+        public void disposeArena() {
+            controller.dispose();
+        }
+
+        /**
+         * Simulates the next step, captures it and sorts it for the
+         * interest filter, which the server does once per step for
+         * every client.
+         */
+        @Setup(Level.Invocation)
+        public void step() {
+            controller.step();
+            tick++;
+
+            QuantizedState world = current(worlds);
+            world.capture(model.getStore(), tick);
+            interest.update(world);
+        }
+
+        /**
+         * Returns the element of the previous step.
+         *
+         * @param elements the elements alternating between steps
+         * @return the element of the previous step
+         */
+        <T> T previous(T[] elements) {
+            return elements[(tick - 1) & 1];
+        }
+
+        /**
+         * Returns the element of the current step.
+         *
+         * @param elements the elements alternating between steps
+         * @return the element of the current step
+         */
+        <T> T current(T[] elements) {
+            return elements[tick & 1];
+        }
+    }
+
+    @Benchmark
+    public int capture(Clients arena) {
+        QuantizedState world = arena.current(arena.worlds);
+        world.capture(arena.model.getStore(), arena.tick);
+        arena.interest.update(world);
+        return world.size();
+    }
+
+    @Benchmark
+    public int fullState(Clients arena) {
+        QuantizedState world = arena.current(arena.worlds);
+
+        int bytes = 0;
+        for (int i = 0; i < arena.clientCount; i++) {
+            arena.buffer.clear();
+            DeltaCodec.encode(arena.buffer, arena.previous(arena.worlds), world);
+            bytes += arena.buffer.position();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int interest(Clients arena) {
+        QuantizedState world = arena.current(arena.worlds);
+
+        int bytes = 0;
+        for (int i = 0; i < arena.clientCount; i++) {
+            EntitySelection view = arena.current(arena.views[i]);
+            int ship = world.indexOf(arena.ships[i].getHandle());
+            arena.interest.select(world, world.getX(ship), world.getY(ship), view);
+
+            arena.buffer.clear();
+            DeltaCodec.encode(arena.buffer, arena.previous(arena.worlds), arena.previous(arena.views[i]), world, view);
+            bytes += arena.buffer.position();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+package com.aor.arena.benchmarks;
+
+import com.aor.arena.controller.ArenaSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures taking and restoring snapshots of an arena.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SnapshotBenchmark {
+    /**
+     * Number of ticks simulated before rolling back.
+     */
+    private static final int ROLLBACK_TICKS = 10;
+
+    /**
+     * An arena with a snapshot of its initial state.
+     */
+    @State(Scope.Thread)
+    public static class Snapshotted extends ArenaState {
+        /**
+         * The snapshot of the arena.
+         */
+        ArenaSnapshot snapshot;
+
+        /**
+         * Takes the snapshot.
+         */
+        @Setup(Level.Trial)
+        public void takeSnapshot() {
+            snapshot = new ArenaSnapshot(1024);
+            controller.update(DELTA);
+            snapshot.take(controller);
+        }
+    }
+
+    /**
+     * An arena that has moved on since its snapshot was taken.
+     */
+    @State(Scope.Thread)
+    public static class Diverged extends Snapshotted {
+        /**
+         * Simulates a few ticks with the ship shooting.
+         */
+        @Setup(Level.Invocation)
+        public void diverge() {
+            controller.getInput().setShooting(true);
+            for (int i = 0; i < ROLLBACK_TICKS; i++)
+                controller.step();
+            controller.getInput().setShooting(false);
+        }
+    }
+
+    @Benchmark
+    public void take(Snapshotted arena) {
+        arena.snapshot.take(arena.controller);
+    }
+
+    @Benchmark
+    public void restore(Snapshotted arena) {
+        arena.snapshot.restore(arena.controller);
+    }
+
+    @Benchmark
+    public void rollback(Diverged arena) {
+        arena.snapshot.restore(arena.controller);
+    }
+}
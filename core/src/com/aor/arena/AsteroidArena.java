@@ -1,9 +1,13 @@
 package com.aor.arena;
 
 import com.aor.arena.controller.GameController;
+import com.aor.arena.controller.InputRecorder;
+import com.aor.arena.model.ArenaConfig;
 import com.aor.arena.model.GameModel;
 import com.aor.arena.view.GameView;
+import com.aor.arena.view.LoadingView;
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
@@ -14,30 +18,79 @@ public class AsteroidArena extends Game {
 	private SpriteBatch batch;
 	private AssetManager assetManager;
 
+    /**
+     * The file the input of the game is recorded to, or null if not recording.
+     */
+    private final String recordingPath;
+
+    /**
+     * The local file the arena configuration is read from, or null for
+     * the default arena.
+     */
+    private final String configPath;
+
+    /**
+     * Records the input of the game, or null if not recording.
+     */
+    private InputRecorder inputRecorder;
+
+    /**
+     * Creates the game.
+     */
+    public AsteroidArena() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a game that records its input into a local file when
+     * disposed. The recording can be replayed by the headless launcher,
+     * given the same arena configuration.
+     *
+     * @param recordingPath the local file the input is recorded to, or null
+     * @param configPath the local file holding the arena configuration, as JSON, or null
+     */
+    public AsteroidArena(String recordingPath, String configPath) {
+        this.recordingPath = recordingPath;
+        this.configPath = configPath;
+    }
+
     /**
      * Creates the game. Initializes the sprite batch and asset manager.
-     * Also starts the game until we have a main menu.
+     * Then shows the loading screen, which starts the game once the
+     * assets are loaded, until we have a main menu.
      */
 	@Override
 	public void create () {
 		batch = new SpriteBatch();
 		assetManager = new AssetManager();
 
-        startGame();
+        setScreen(new LoadingView(this));
 	}
 
     /**
-     * Starts the game.
+     * Starts the game. The assets of the game screen must have been loaded.
      */
-    private void startGame() {
-        setScreen(new GameView(this));
+    public void startGame() {
+        ArenaConfig config = configPath == null ? new ArenaConfig() : ArenaConfig.fromJson(Gdx.files.local(configPath).readString("UTF-8"));
+        GameModel model = new GameModel(config);
+        GameController controller = new GameController(model);
+        if (recordingPath != null) {
+            inputRecorder = new InputRecorder(model.getSeed(), config, controller.isLightweightBullets());
+            controller.setInputRecorder(inputRecorder);
+        }
+        setScreen(new GameView(this, controller));
     }
 
     /**
-     * Disposes of all assets.
+     * Disposes of all assets and saves the input recording, once the
+     * screen has stopped simulating the game.
      */
     @Override
 	public void dispose () {
+		if (getScreen() != null)
+			getScreen().dispose();
+		if (inputRecorder != null)
+			Gdx.files.local(recordingPath).writeBytes(inputRecorder.toBytes(), false);
 		batch.dispose();
 		assetManager.dispose();
 	}
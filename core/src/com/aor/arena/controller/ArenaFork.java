@@ -0,0 +1,87 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.GameModel;
+
+/**
+ * A shadow arena used to simulate ahead of a game without touching it,
+ * for instance to look ahead for an AI or to predict for rollback.
+ *
+ * Forking copies the game into the shadow through a snapshot. The shadow
+ * keeps its models and bodies between forks, and restoring reuses them,
+ * so forking on every frame does not create or destroy Box2D bodies
+ * beyond the ones that differ. The speculative result can be discarded,
+ * by simply forking again, or committed back to a game.
+ */
+public class ArenaFork {
+    /**
+     * The controller of the shadow arena.
+     */
+    private final GameController shadow;
+
+    /**
+     * The snapshot used to copy between arenas.
+     */
+    private final ArenaSnapshot snapshot = new ArenaSnapshot(4096);
+
+    /**
+     * Creates a shadow arena for a game. The shadow uses the same
+     * kind of bullets as the game.
+     *
+     * @param source the controller of the game
+     */
+    public ArenaFork(GameController source) {
+        shadow = new GameController(new GameModel(source.getModel().getConfig(), source.getModel().getSeed()));
+        shadow.setLightweightBullets(source.isLightweightBullets());
+    }
+
+    /**
+     * Makes the shadow arena a copy of a game. Anything simulated in
+     * the shadow since the last fork is discarded.
+     *
+     * @param source the controller of the game
+     * @return the controller of the shadow arena
+     */
+    public GameController fork(GameController source) {
+        snapshot.take(source);
+        snapshot.restore(shadow);
+        return shadow;
+    }
+
+    /**
+     * Simulates the shadow arena a number of steps ahead. The latched
+     * input of the shadow is used on every step.
+     *
+     * @param steps the number of steps
+     */
+    public void simulate(int steps) {
+        for (int i = 0; i < steps; i++)
+            shadow.step();
+    }
+
+    /**
+     * Makes a game a copy of the shadow arena, keeping the result of
+     * the speculative simulation.
+     *
+     * @param target the controller of the game
+     */
+    public void commit(GameController target) {
+        snapshot.take(shadow);
+        snapshot.restore(target);
+    }
+
+    /**
+     * Returns the controller of the shadow arena.
+     *
+     * @return the controller of the shadow arena
+     */
+    public GameController getShadow() {
+        return shadow;
+    }
+
+    /**
+     * Disposes of the shadow arena.
+     */
+    public void dispose() {
+        shadow.dispose();
+    }
+}
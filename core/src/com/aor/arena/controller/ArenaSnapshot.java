@@ -0,0 +1,86 @@
+package com.aor.arena.controller;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A reusable snapshot of a game, held in a direct little-endian buffer.
+ * The buffer only grows when a game no longer fits, so taking a snapshot
+ * on every step does not allocate memory.
+ *
+ * The buffer can be written to a channel to persist a game. A snapshot
+ * read back into any buffer, including a memory-mapped file, can be
+ * restored directly with GameController.restore.
+ */
+public class ArenaSnapshot {
+    /**
+     * The buffer holding the snapshot, between position zero and its limit.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Creates an empty snapshot.
+     *
+     * @param capacity the initial capacity of the snapshot in bytes
+     */
+    public ArenaSnapshot(int capacity) {
+        buffer = allocate(capacity);
+        buffer.limit(0);
+    }
+
+    /**
+     * Takes a snapshot of a game, replacing the previous one.
+     *
+     * @param controller the controller of the game
+     */
+    public void take(GameController controller) {
+        int size = controller.getSnapshotSize();
+        if (size > buffer.capacity())
+            buffer = allocate(Math.max(size, buffer.capacity() * 2));
+
+        buffer.clear();
+        controller.snapshot(buffer);
+        buffer.flip();
+    }
+
+    /**
+     * Restores a game to the state of this snapshot.
+     *
+     * @param controller the controller of the game
+     */
+    public void restore(GameController controller) {
+        buffer.rewind();
+        controller.restore(buffer);
+        buffer.rewind();
+    }
+
+    /**
+     * Returns the size of this snapshot.
+     *
+     * @return the size in bytes
+     */
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * Returns the buffer holding this snapshot, positioned at its start.
+     * Its contents are only valid until the next snapshot is taken.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer getBuffer() {
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Allocates a direct little-endian buffer.
+     *
+     * @param capacity the capacity in bytes
+     * @return the buffer
+     */
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
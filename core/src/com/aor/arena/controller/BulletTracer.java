@@ -0,0 +1,183 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.EntityStore;
+import com.aor.arena.model.SpatialHash;
+import com.aor.arena.model.entities.AsteroidModel;
+import com.aor.arena.model.entities.BulletModel;
+import com.aor.arena.model.entities.EntityModel.ModelType;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntArray;
+
+import static com.aor.arena.model.ArenaWrap.closest;
+import static com.aor.arena.model.ArenaWrap.wrap;
+
+/**
+ * Simulates bullets without physics bodies. Each bullet is moved as
+ * a ray segment and tested against the bounding circles of the
+ * asteroids close to it, found using a spatial hash that is rebuilt
+ * every frame. Hits are reported to the controller as regular bullet
+ * asteroid collisions.
+ *
+ * Asteroids are approximated by their bounding circles and bullets do
+ * not hit the space ship.
+ */
+class BulletTracer {
+    /**
+     * The size of the spatial hash cells in meters.
+     */
+    private static final float CELL_SIZE = 4;
+
+    /**
+     * The radius of the circle bounding a big asteroid in meters.
+     */
+    private static final float BIG_ASTEROID_RADIUS = 1.5f;
+
+    /**
+     * The radius of the circle bounding a medium asteroid in meters.
+     */
+    private static final float MEDIUM_ASTEROID_RADIUS = 0.7f;
+
+    /**
+     * The controller receiving the collisions.
+     */
+    private final GameController controller;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The asteroids, indexed by their bounding circles.
+     */
+    private final SpatialHash asteroids;
+
+    /**
+     * The asteroids close to the bullet being traced.
+     */
+    private final IntArray candidates = new IntArray();
+
+    /**
+     * Creates a bullet tracer.
+     *
+     * @param controller the controller receiving the collisions
+     */
+    BulletTracer(GameController controller) {
+        this.controller = controller;
+        width = controller.getModel().getConfig().getWidth();
+        height = controller.getModel().getConfig().getHeight();
+        asteroids = new SpatialHash(width, height, CELL_SIZE);
+    }
+
+    /**
+     * Moves every bullet without a physics body and detects
+     * the asteroids they hit. The spatial hash is only rebuilt
+     * if there is at least one bullet to trace.
+     *
+     * @param store the store holding the state of every entity
+     * @param delta the simulated time in seconds
+     * @param speed the speed of the bullets in meters per second
+     */
+    void update(EntityStore store, float delta, float speed) {
+        if (delta <= 0) return;
+
+        boolean indexed = false;
+        for (int i = 0; i < store.size(); i++)
+            if (store.getType(i) == ModelType.BULLET && !store.hasFlag(i, EntityStore.FLAG_REMOVAL) && !controller.hasBody(store.getHandle(i))) {
+                if (!indexed) {
+                    index(store);
+                    indexed = true;
+                }
+                trace(store, i, delta * speed);
+            }
+    }
+
+    /**
+     * Rebuilds the spatial hash with the current asteroid positions.
+     *
+     * @param store the store holding the state of every entity
+     */
+    private void index(EntityStore store) {
+        asteroids.clear();
+        for (int i = 0; i < store.size(); i++) {
+            ModelType type = store.getType(i);
+            if (type == ModelType.BIGASTEROID || type == ModelType.MEDIUMASTEROID)
+                asteroids.insert(store.getHandle(i), store.getX(i), store.getY(i), radius(type));
+        }
+    }
+
+    /**
+     * Moves a bullet along its direction and reports the first asteroid it hits.
+     *
+     * @param store the store holding the state of every entity
+     * @param index the index of the bullet in the store
+     * @param distance the distance travelled by the bullet in meters
+     */
+    private void trace(EntityStore store, int index, float distance) {
+        float x = store.getX(index), y = store.getY(index), rotation = store.getRotation(index);
+        float dx = -MathUtils.sin(rotation) * distance, dy = MathUtils.cos(rotation) * distance;
+
+        candidates.clear();
+        asteroids.query(Math.min(x, x + dx), Math.min(y, y + dy), Math.max(x, x + dx), Math.max(y, y + dy), candidates);
+
+        float first = 2;
+        int hit = -1;
+        for (int c = 0; c < candidates.size; c++) {
+            int asteroid = store.indexOf(candidates.get(c));
+            float t = intersect(x, y, dx, dy, store.getX(asteroid), store.getY(asteroid), radius(store.getType(asteroid)));
+            if (t < first) {
+                first = t;
+                hit = asteroid;
+            }
+        }
+
+        if (hit == -1) first = 1;
+        store.setPosition(index, wrap(x + dx * first, width), wrap(y + dy * first, height));
+
+        if (hit != -1) {
+            BulletModel bullet = (BulletModel) store.getModel(index);
+            controller.bulletCollision(bullet);
+            controller.bulletAsteroidCollision(bullet, (AsteroidModel) store.getModel(hit));
+        }
+    }
+
+    /**
+     * Finds where a segment first touches a circle. The arena wraps around
+     * its edges, so the circle is moved to the copy closest to the segment.
+     *
+     * @param x the x-coordinate of the start of the segment
+     * @param y the y-coordinate of the start of the segment
+     * @param dx the x-component of the segment
+     * @param dy the y-component of the segment
+     * @param cx the x-coordinate of the center of the circle
+     * @param cy the y-coordinate of the center of the circle
+     * @param radius the radius of the circle
+     * @return the fraction of the segment where they touch, or 2 if they do not
+     */
+    private float intersect(float x, float y, float dx, float dy, float cx, float cy, float radius) {
+        float ox = closest(cx - x, width), oy = closest(cy - y, height);
+
+        float length2 = dx * dx + dy * dy;
+        float t = length2 == 0 ? 0 : MathUtils.clamp((ox * dx + oy * dy) / length2, 0, 1);
+        float px = dx * t - ox, py = dy * t - oy;
+        if (px * px + py * py > radius * radius)
+            return 2;
+
+        return t;
+    }
+
+    /**
+     * Returns the radius of the circle bounding an asteroid.
+     *
+     * @param type the type of the asteroid
+     * @return the radius in meters
+     */
+    private static float radius(ModelType type) {
+        return type == ModelType.BIGASTEROID ? BIG_ASTEROID_RADIUS : MEDIUM_ASTEROID_RADIUS;
+    }
+}
@@ -0,0 +1,167 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.controller.entities.BodyPool;
+import com.aor.arena.controller.entities.EntityBody;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.util.Arrays;
+
+/**
+ * Gives the bodies close to an arena edge ghost copies on the other
+ * side of that edge, so they collide with bodies across the seam.
+ *
+ * A body close to a vertical edge has a ghost shifted by the arena width,
+ * one close to a horizontal edge has a ghost shifted by the arena height
+ * and one close to a corner has both plus a third, diagonal ghost.
+ * Ghosts are kinematic bodies representing the same model as the body
+ * they copy, so the contact listener handles them like the original.
+ * As kinematic bodies are not pushed back, each body near the seam is
+ * pushed by the ghost of the other, which is enough for asteroids
+ * bouncing off each other.
+ *
+ * Only bodies that are close to an edge, or were on the previous step,
+ * cost any calls into Box2D.
+ */
+class EdgeGhosts {
+    /**
+     * Bodies closer than this to an edge get ghosts, in meters. Two
+     * bodies touching across the seam are at most the sum of their
+     * bounding radiuses away from it, plus what they move in a step.
+     */
+    static final float MARGIN = 5;
+
+    /**
+     * Number of ghosts a body can have.
+     */
+    private static final int GHOSTS_PER_BODY = 3;
+
+    /**
+     * The ghost bodies, reused as bodies move in and out of the margin.
+     */
+    private final BodyPool pool;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The ghosts of each body, GHOSTS_PER_BODY slots per entity handle:
+     * shifted horizontally, shifted vertically and shifted diagonally.
+     */
+    private EntityBody[] ghosts = new EntityBody[128 * GHOSTS_PER_BODY];
+
+    /**
+     * Creates the ghosts of the bodies of a world.
+     *
+     * @param world the world
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     */
+    EdgeGhosts(World world, float width, float height) {
+        pool = new BodyPool(world, BodyDef.BodyType.KinematicBody);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Places the ghosts of a body after it moved, creating the ones it
+     * needs and freeing the ones it no longer needs.
+     *
+     * @param body the body
+     * @param x the x-coordinate of the body, inside the arena
+     * @param y the y-coordinate of the body, inside the arena
+     * @param angle the rotation of the body
+     */
+    void update(EntityBody body, float x, float y, float angle) {
+        int slot = body.getModel().getHandle() * GHOSTS_PER_BODY;
+        int dx = x < MARGIN ? 1 : x > width - MARGIN ? -1 : 0;
+        int dy = y < MARGIN ? 1 : y > height - MARGIN ? -1 : 0;
+
+        if (dx == 0 && dy == 0 && !hasGhosts(slot))
+            return;
+        if (slot + GHOSTS_PER_BODY > ghosts.length)
+            ghosts = Arrays.copyOf(ghosts, Math.max(slot + GHOSTS_PER_BODY, ghosts.length * 2));
+
+        Vector2 velocity = body.getLinearVelocity();
+        float vx = velocity.x, vy = velocity.y, omega = body.getAngularVelocity();
+
+        place(slot, body, dx != 0, x + dx * width, y, angle, vx, vy, omega);
+        place(slot + 1, body, dy != 0, x, y + dy * height, angle, vx, vy, omega);
+        place(slot + 2, body, dx != 0 && dy != 0, x + dx * width, y + dy * height, angle, vx, vy, omega);
+    }
+
+    /**
+     * Frees the ghosts of an entity whose body was removed.
+     *
+     * @param handle the handle of the entity
+     */
+    void remove(int handle) {
+        int slot = handle * GHOSTS_PER_BODY;
+        if (slot >= ghosts.length) return;
+
+        for (int i = slot; i < slot + GHOSTS_PER_BODY; i++)
+            free(i);
+    }
+
+    /**
+     * Moves the ghost in a slot to the position of a copy of its body,
+     * or frees it if the copy is not needed.
+     *
+     * @param slot the slot of the ghost
+     * @param body the body being copied
+     * @param needed if the ghost is needed
+     * @param x the x-coordinate of the ghost
+     * @param y the y-coordinate of the ghost
+     * @param angle the rotation of the ghost
+     * @param vx the x-component of the velocity of the body
+     * @param vy the y-component of the velocity of the body
+     * @param omega the angular velocity of the body
+     */
+    private void place(int slot, EntityBody body, boolean needed, float x, float y, float angle, float vx, float vy, float omega) {
+        if (!needed) {
+            free(slot);
+            return;
+        }
+
+        EntityBody ghost = ghosts[slot];
+        if (ghost == null)
+            ghost = ghosts[slot] = pool.obtain(body.getModel());
+
+        ghost.setTransform(x, y, angle);
+        ghost.setLinearVelocity(vx, vy);
+        ghost.setAngularVelocity(omega);
+    }
+
+    /**
+     * Frees the ghost in a slot, if there is one.
+     *
+     * @param slot the slot of the ghost
+     */
+    private void free(int slot) {
+        if (ghosts[slot] != null) {
+            pool.free(ghosts[slot]);
+            ghosts[slot] = null;
+        }
+    }
+
+    /**
+     * Verifies if a body has any ghost.
+     *
+     * @param slot the first slot of the body
+     * @return true if the body has at least one ghost
+     */
+    private boolean hasGhosts(int slot) {
+        if (slot >= ghosts.length) return false;
+        for (int i = slot; i < slot + GHOSTS_PER_BODY; i++)
+            if (ghosts[i] != null) return true;
+        return false;
+    }
+}
@@ -1,9 +1,10 @@
 package com.aor.arena.controller;
 
-import com.aor.arena.controller.entities.BigAsteroidBody;
-import com.aor.arena.controller.entities.BulletBody;
-import com.aor.arena.controller.entities.MediumAsteroidBody;
+import com.aor.arena.controller.entities.BodyPool;
+import com.aor.arena.controller.entities.EntityBody;
 import com.aor.arena.controller.entities.ShipBody;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.EntityStore;
 import com.aor.arena.model.GameModel;
 import com.aor.arena.model.entities.AsteroidModel;
 import com.aor.arena.model.entities.BulletModel;
@@ -18,7 +19,10 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.lang.Math.PI;
@@ -26,24 +30,84 @@ import static java.lang.Math.cos;
 import static java.lang.Math.sin;
 
 /**
- * Controls the physics aspect of the game.
+ * Controls the physics aspect of the game. Each controller owns its
+ * own physics world, so several games can be simulated at the same
+ * time as long as each one is only used by one thread at a time.
  */
 
 public class GameController implements ContactListener {
     /**
-     * The singleton instance of this controller
+     * The width of the default arena in meters.
      */
-    private static GameController instance;
+    public static final int ARENA_WIDTH = 100;
 
     /**
-     * The arena width in meters.
+     * The height of the default arena in meters.
      */
-    public static final int ARENA_WIDTH = 100;
+    public static final int ARENA_HEIGHT = 50;
 
     /**
-     * The arena height in meters.
+     * The duration of each simulation step in seconds.
      */
-    public static final int ARENA_HEIGHT = 50;
+    public static final float STEP = 1/60f;
+
+    /**
+     * Velocity iterations of each world step, unless lowered by the
+     * step policy.
+     */
+    public static final int VELOCITY_ITERATIONS = 6;
+
+    /**
+     * Position iterations of each world step, unless lowered by the
+     * step policy.
+     */
+    public static final int POSITION_ITERATIONS = 2;
+
+    /**
+     * The maximum time simulated by a single update in seconds. Time
+     * past it is dropped.
+     */
+    private static final float MAX_FRAME_TIME = 0.25f;
+
+    /**
+     * Identifies snapshots.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4e534141;
+
+    /**
+     * The version of the snapshot layout.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Size of the snapshot header in bytes.
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = 52;
+
+    /**
+     * Size of each entity in a snapshot in bytes.
+     */
+    private static final int SNAPSHOT_ENTITY_SIZE = 32;
+
+    /**
+     * Size of each asteroid waiting to be created in a snapshot in bytes.
+     */
+    private static final int SNAPSHOT_PENDING_SIZE = 16;
+
+    /**
+     * Set on snapshot entities that have a physics body.
+     */
+    private static final byte SNAPSHOT_BODY = 0x01;
+
+    /**
+     * Set on snapshot entities whose physics body is awake.
+     */
+    private static final byte SNAPSHOT_AWAKE = 0x02;
+
+    /**
+     * The model types, indexed by ordinal.
+     */
+    private static final EntityModel.ModelType[] TYPES = EntityModel.ModelType.values();
 
     /**
      * The rotation speed in radians per second.
@@ -61,14 +125,29 @@ public class GameController implements ContactListener {
     private static final float BULLET_SPEED = 30f;
 
     /**
-     * The number of fragments an asteroid breaks into
+     * How much each step weighs in the average step time.
      */
-    private static final int FRAGMENT_COUNT = 5;
+    private static final float STEP_TIME_SMOOTHING = 1/16f;
 
     /**
-     * Minimum time between consecutive shots in seconds
+     * The game model controlled by this controller.
      */
-    private static final float TIME_BETWEEN_SHOTS = .1f;
+    private final GameModel model;
+
+    /**
+     * The parameters of the arena.
+     */
+    private final ArenaConfig config;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
 
     /**
      * The physics world controlled by this controller.
@@ -76,9 +155,43 @@ public class GameController implements ContactListener {
     private final World world;
 
     /**
-     * The spaceship body.
+     * The space ship of the player, the first of the ships.
      */
-    private final ShipBody shipBody;
+    private final PlayerShip player;
+
+    /**
+     * Every space ship flown by a player.
+     */
+    private final Array<PlayerShip> ships = new Array<PlayerShip>();
+
+    /**
+     * Every body living in the physics world, including the spaceship,
+     * indexed by the handle of its model in the game entity store.
+     * Kept up to date as bodies are created and destroyed so that
+     * stepping the simulation does not need to query the world for
+     * its bodies.
+     */
+    private EntityBody[] bodies = new EntityBody[128];
+
+    /**
+     * Which bodies were asleep after the last step, indexed like the
+     * bodies. Box2D does not move sleeping bodies, so a body that was
+     * asleep and still is does not need to be synchronized. In large
+     * arenas, where most asteroids are asleep, this skips most of the
+     * calls into Box2D after each step. Ships are turned without being
+     * woken up, so they are never taken as asleep.
+     */
+    private boolean[] sleeping = new boolean[128];
+
+    /**
+     * Bodies of removed entities, kept to be reused by new entities.
+     */
+    private final BodyPool bodyPool;
+
+    /**
+     * The ghost copies of the bodies close to the arena edges.
+     */
+    private final EdgeGhosts ghosts;
 
     /**
      * Accumulator used to calculate the simulation step.
@@ -91,85 +204,270 @@ public class GameController implements ContactListener {
     private List<AsteroidModel> asteroidsToAdd = new ArrayList<AsteroidModel>();
 
     /**
-     * Time left until gun cools down
+     * Records the input applied on each step, or null if not recording.
      */
-    private float timeToNextShoot;
+    private InputRecorder inputRecorder;
+
+    /**
+     * Simulates bullets without physics bodies, or null if
+     * every bullet has its own body.
+     */
+    private BulletTracer bulletTracer;
+
+    /**
+     * The average time taken by the last steps, in seconds.
+     */
+    private float averageStepTime;
+
+    /**
+     * Number of fragments not created because of the budgets.
+     */
+    private int skippedFragments;
+
+    /**
+     * Lowers the quality and the number of steps when the game is
+     * updated in real time and steps take too long.
+     */
+    private final StepPolicy stepPolicy;
 
     /**
      * Creates a new GameController that controls the physics of a certain GameModel.
      *
+     * @param model the game model to be controlled
      */
-    private GameController() {
+    public GameController(GameModel model) {
+        this.model = model;
+        config = model.getConfig();
+        width = config.getWidth();
+        height = config.getHeight();
+        stepPolicy = new StepPolicy(config);
+
         world = new World(new Vector2(0, 0), true);
 
-        shipBody = new ShipBody(world, GameModel.getInstance().getShip());
+        bodyPool = new BodyPool(world);
+        ghosts = new EdgeGhosts(world, width, height);
 
-        List<AsteroidModel> asteroids = GameModel.getInstance().getAsteroids();
+        ShipBody shipBody = new ShipBody(world, model.getShip());
+        addBody(shipBody);
+        player = new PlayerShip(shipBody);
+        ships.add(player);
+
+        List<AsteroidModel> asteroids = model.getAsteroids();
         for (AsteroidModel asteroid : asteroids)
-        if (asteroid.getSize() == AsteroidModel.AsteroidSize.BIG)
-            new BigAsteroidBody(world, asteroid);
-        else if (asteroid.getSize() == AsteroidModel.AsteroidSize.MEDIUM)
-            new MediumAsteroidBody(world, asteroid);
+            addBody(bodyPool.obtain(asteroid));
+        updateGhosts();
 
         world.setContactListener(this);
     }
 
     /**
-     * Returns a singleton instance of a game controller
+     * Disposes of the physics world of this controller. The controller
+     * can not be used afterwards.
+     */
+    public void dispose() {
+        world.dispose();
+    }
+
+    /**
+     * Returns the game model controlled by this controller.
      *
-     * @return the singleton instance
+     * @return the game model
      */
-    public static GameController getInstance() {
-        if (instance == null)
-            instance = new GameController();
-        return instance;
+    public GameModel getModel() {
+        return model;
     }
 
     /**
-     * Calculates the next physics step of duration delta (in seconds).
+     * Advances the simulation by delta seconds. The game advances in
+     * whole steps of STEP seconds and the time left over is kept for
+     * the next update, so the same sequence of steps and inputs always
+     * leads to the same state, however long each frame took.
+     *
+     * When steps take too long, the step policy lowers their iterations
+     * and how many of them an update simulates, and whole steps that
+     * were not simulated are dropped, so a slow machine does not spend
+     * ever longer frames catching up.
      *
-     * @param delta The size of this physics step in seconds.
+     * @param delta Time since the last update in seconds.
      */
     public void update(float delta) {
-        GameModel.getInstance().update(delta);
+        float frameTime = Math.min(delta, MAX_FRAME_TIME);
+        float dropped = delta - frameTime;
+        accumulator += frameTime;
 
-        timeToNextShoot -= delta;
+        int substeps = stepPolicy.getMaxSubsteps(delta, averageStepTime);
+        for (int i = 0; i < substeps && accumulator >= STEP; i++) {
+            step();
+            stepPolicy.adapt(averageStepTime);
+            accumulator -= STEP;
+        }
 
-        float frameTime = Math.min(delta, 0.25f);
-        accumulator += frameTime;
-        while (accumulator >= 1/60f) {
-            world.step(1/60f, 6, 2);
-            accumulator -= 1/60f;
+        if (accumulator >= STEP) {
+            float late = accumulator - accumulator % STEP;
+            accumulator -= late;
+            dropped += late;
         }
+        if (dropped > 0)
+            stepPolicy.drop(dropped);
+    }
+
+    /**
+     * Advances the simulation by exactly one step. All game logic runs
+     * here: flagged entities are removed, new asteroids are created,
+     * the latched input is applied, bullets age, and the physics world
+     * is stepped. The time taken is measured, to keep the game within
+     * its step budget.
+     */
+    public void step() {
+        long start = System.nanoTime();
+        removeFlagged();
+        createNewAsteroids();
+
+        if (inputRecorder != null)
+            inputRecorder.record(player.input);
+        for (int i = 0; i < ships.size; i++)
+            applyInput(ships.get(i));
+        model.update(STEP);
 
-        Array<Body> bodies = new Array<Body>();
-        world.getBodies(bodies);
+        world.step(STEP, stepPolicy.getVelocityIterations(), stepPolicy.getPositionIterations());
 
-        for (Body body : bodies) {
-            verifyBounds(body);
-            ((EntityModel) body.getUserData()).setPosition(body.getPosition().x, body.getPosition().y);
-            ((EntityModel) body.getUserData()).setRotation(body.getAngle());
+        EntityStore store = model.getStore();
+        for (int i = 0; i < store.size(); i++) {
+            int handle = store.getHandle(i);
+            if (!hasBody(handle))
+                continue;
+
+            EntityBody body = bodies[handle];
+            boolean awake = body.isAwake();
+            if (awake || !sleeping[handle])
+                synchronize(body, store, i);
+            sleeping[handle] = !awake && store.getType(i) != EntityModel.ModelType.SHIP;
         }
+
+        if (bulletTracer != null)
+            bulletTracer.update(store, STEP, BULLET_SPEED);
+
+        averageStepTime += ((System.nanoTime() - start) / 1e9f - averageStepTime) * STEP_TIME_SMOOTHING;
+    }
+
+    /**
+     * Returns the average time taken by the last steps.
+     *
+     * @return the time in seconds
+     */
+    public float getAverageStepTime() {
+        return averageStepTime;
+    }
+
+    /**
+     * Returns the policy that adapts the steps of this game when it is
+     * updated in real time.
+     *
+     * @return the step policy
+     */
+    public StepPolicy getStepPolicy() {
+        return stepPolicy;
+    }
+
+    /**
+     * Returns the number of fragments not created so far because there
+     * was no room for them in the entity budget, or because steps were
+     * taking longer than the step budget.
+     *
+     * @return the number of fragments
+     */
+    public int getSkippedFragments() {
+        return skippedFragments;
+    }
+
+    /**
+     * Returns if there is room for more entities in the entity budget.
+     *
+     * @param count the number of entities
+     * @return true if count more entities can be created
+     */
+    private boolean hasRoom(int count) {
+        return model.getStore().size() + asteroidsToAdd.size() + count <= config.getMaxEntities();
+    }
+
+    /**
+     * Returns the number of fragments a big asteroid breaks into now.
+     * While steps take longer than the step budget, on average, the
+     * number of fragments is reduced in proportion, but an asteroid
+     * always breaks into at least one if there is room for it.
+     *
+     * @return the number of fragments
+     */
+    private int fragmentCount() {
+        int fragments = config.getFragmentCount();
+        float budget = config.getStepBudget();
+        if (budget > 0 && averageStepTime > budget)
+            fragments = Math.max(Math.min(fragments, 1), (int) (fragments * budget / averageStepTime));
+
+        int room = config.getMaxEntities() - model.getStore().size() - asteroidsToAdd.size();
+        return Math.max(0, Math.min(fragments, room));
+    }
+
+    /**
+     * Enables or disables lightweight bullets. Lightweight bullets have
+     * no physics body. Instead, they are traced against the asteroids
+     * after each step, so Box2D has fewer bodies and contacts to handle.
+     * Bullets fired before changing the mode keep their behavior.
+     *
+     * @param lightweightBullets true to fire lightweight bullets
+     */
+    public void setLightweightBullets(boolean lightweightBullets) {
+        bulletTracer = lightweightBullets ? new BulletTracer(this) : null;
+    }
+
+    /**
+     * Returns if lightweight bullets are enabled.
+     *
+     * @return true if new bullets are lightweight
+     */
+    public boolean isLightweightBullets() {
+        return bulletTracer != null;
     }
 
     /**
      * Verifies if the body is inside the arena bounds and if not
-     * wraps it around to the other side.
+     * wraps it around to the other side, keeping how far past the edge
+     * it went so it moves on smoothly. Then copies the body transform
+     * into the entity store and places its ghosts. The Box2D transform
+     * is read only once.
      *
      * @param body The body to be verified.
+     * @param store The store holding the state of the body model.
+     * @param index The index of the body model in the store.
      */
-    private void verifyBounds(Body body) {
-        if (body.getPosition().x < 0)
-            body.setTransform(ARENA_WIDTH, body.getPosition().y, body.getAngle());
+    private void synchronize(EntityBody body, EntityStore store, int index) {
+        Vector2 position = body.getPosition();
+        float x = position.x, y = position.y, angle = body.getAngle();
 
-        if (body.getPosition().y < 0)
-            body.setTransform(body.getPosition().x, ARENA_HEIGHT, body.getAngle());
+        boolean wrapped = false;
+        if (x < 0) { x += width; wrapped = true; }
+        if (y < 0) { y += height; wrapped = true; }
+        if (x > width) { x -= width; wrapped = true; }
+        if (y > height) { y -= height; wrapped = true; }
 
-        if (body.getPosition().x > ARENA_WIDTH)
-            body.setTransform(0, body.getPosition().y, body.getAngle());
+        if (wrapped)
+            body.setTransform(x, y, angle);
 
-        if (body.getPosition().y > ARENA_HEIGHT)
-            body.setTransform(body.getPosition().x, 0, body.getAngle());
+        store.setPosition(index, x, y);
+        store.setRotation(index, angle);
+        ghosts.update(body, x, y, angle);
+    }
+
+    /**
+     * Places the ghosts of every body according to its current transform.
+     */
+    private void updateGhosts() {
+        EntityStore store = model.getStore();
+        for (int i = 0; i < store.size(); i++) {
+            int handle = store.getHandle(i);
+            if (hasBody(handle))
+                ghosts.update(bodies[handle], store.getX(i), store.getY(i), store.getRotation(i));
+        }
     }
 
     /**
@@ -182,50 +480,178 @@ public class GameController implements ContactListener {
     }
 
     /**
-     * Rotates the spaceship left. The rotation takes into consideration the
-     * constant rotation speed and the delta for this simulation step.
+     * Returns the commands given to the spaceship. They are applied by
+     * every step until they are changed.
+     *
+     * @return the spaceship input
+     */
+    public ShipInput getInput() {
+        return player.input;
+    }
+
+    /**
+     * Returns the commands given to a space ship. They are applied by
+     * every step until they are changed.
+     *
+     * @param ship the space ship
+     * @return the space ship input
+     * @throws IllegalArgumentException if the ship is not in this game
+     */
+    public ShipInput getInput(ShipModel ship) {
+        return find(ship).input;
+    }
+
+    /**
+     * Returns the body of a space ship, whose velocity is sent to the
+     * client flying it.
+     *
+     * @param ship the space ship
+     * @return the body of the space ship
+     * @throws IllegalArgumentException if the ship is not in this game
+     */
+    public EntityBody getShipBody(ShipModel ship) {
+        return find(ship).body;
+    }
+
+    /**
+     * Adds a space ship flown by another player. Snapshots only hold the
+     * input and gun of the first space ship, so the other ships keep
+     * theirs when a snapshot is restored.
+     *
+     * @param x the x-coordinate of the ship in meters
+     * @param y the y-coordinate of the ship in meters
+     * @return the new ship, or null if there is no room for it in the entity budget
+     */
+    public ShipModel addShip(float x, float y) {
+        if (!hasRoom(1)) return null;
+
+        EntityBody body = bodyPool.obtain(model.addShip(x, y));
+        addBody(body);
+        ships.add(new PlayerShip(body));
+        return (ShipModel) body.getModel();
+    }
+
+    /**
+     * Removes a space ship added with addShip. Must not be called
+     * during a step.
+     *
+     * @param ship the space ship
+     * @throws IllegalArgumentException if the ship is the first one or is not in this game
+     */
+    public void removeShip(ShipModel ship) {
+        if (ship == player.model)
+            throw new IllegalArgumentException("The first ship can not be removed");
+
+        ships.removeValue(find(ship), true);
+        bodyPool.free(removeBody(ship));
+        model.remove(ship);
+    }
+
+    /**
+     * Finds the player flying a space ship.
+     *
+     * @param ship the space ship
+     * @return the player
+     * @throws IllegalArgumentException if the ship is not in this game
+     */
+    private PlayerShip find(ShipModel ship) {
+        for (int i = 0; i < ships.size; i++)
+            if (ships.get(i).model == ship)
+                return ships.get(i);
+        throw new IllegalArgumentException("The ship is not in this game");
+    }
+
+    /**
+     * Records the input applied on every following step. A recording
+     * only holds the input, and replays step with the full iterations,
+     * so the step policy keeps the full iterations while recording.
      *
-     * @param delta Duration of the rotation in seconds.
+     * @param inputRecorder the recorder, or null to stop recording
      */
-    public void rotateLeft(float delta) {
-        shipBody.setTransform(shipBody.getX(), shipBody.getY(), shipBody.getAngle() + ROTATION_SPEED * delta);
-        shipBody.setAngularVelocity(0);
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        this.inputRecorder = inputRecorder;
+        stepPolicy.setAdaptingIterations(inputRecorder == null);
     }
 
     /**
-     * Rotates the spaceship right. The rotation takes into consideration the
-     * constant rotation speed and the delta for this simulation step.
+     * Applies the latched input to a space ship for one step.
      *
-     * @param delta Duration of the rotation in seconds.
+     * @param ship the space ship
      */
-    public void rotateRight(float delta) {
-        shipBody.getX();
+    private void applyInput(PlayerShip ship) {
+        steer(ship.body, ship.input);
+        if (ship.input.isShooting())
+            shoot(ship);
+        ship.timeToNextShoot -= STEP;
+    }
 
-        shipBody.setTransform(shipBody.getX(), shipBody.getY(), shipBody.getAngle() - ROTATION_SPEED * delta);
-        shipBody.setAngularVelocity(0);
+    /**
+     * Rotates and accelerates a space ship body for one step, as
+     * commanded by an input. The acceleration takes into consideration
+     * the constant acceleration force. Also used to predict the ship of
+     * a client, so it moves exactly like the simulated one.
+     *
+     * @param shipBody the body of the space ship
+     * @param input the commands given to the space ship
+     */
+    static void steer(EntityBody shipBody, ShipInput input) {
+        if (input.getRotation() != 0) {
+            shipBody.setTransform(shipBody.getX(), shipBody.getY(), shipBody.getAngle() + ROTATION_SPEED * input.getRotation() * STEP);
+            shipBody.setAngularVelocity(0);
+        }
+        if (input.isAccelerating()) {
+            shipBody.applyForceToCenter(-(float) sin(shipBody.getAngle()) * ACCELERATION_FORCE * STEP, (float) cos(shipBody.getAngle()) * ACCELERATION_FORCE * STEP, true);
+            ((ShipModel) shipBody.getModel()).setAccelerating(true);
+        }
     }
 
     /**
-     * Acceleratesins the spaceship. The acceleration takes into consideration the
-     * constant acceleration force and the delta for this simulation step.
+     * Shoots a bullet from a space ship if its gun has cooled down and
+     * there is room for the bullet in the entity budget.
      *
-     * @param delta Duration of the rotation in seconds.
+     * @param ship the space ship
      */
-    public void accelerate(float delta) {
-        shipBody.applyForceToCenter(-(float) sin(shipBody.getAngle()) * ACCELERATION_FORCE * delta, (float) cos(shipBody.getAngle()) * ACCELERATION_FORCE * delta, true);
-        ((ShipModel)shipBody.getUserData()).setAccelerating(true);
+    private void shoot(PlayerShip ship) {
+        if (ship.timeToNextShoot < 0 && hasRoom(1)) {
+            fire(model.createBullet(ship.model));
+            ship.timeToNextShoot = config.getTimeBetweenShots();
+        }
     }
 
     /**
-     * Shoots a bullet from the spaceship at 10m/s
+     * Fires a bullet from the spaceship ignoring the gun cool down.
+     *
+     * @return the fired bullet, or null if there is no room for it in the entity budget
+     */
+    public BulletModel fire() {
+        return hasRoom(1) ? fire(model.createBullet(model.getShip())) : null;
+    }
+
+    /**
+     * Fires a bullet from a certain position ignoring the gun cool down.
+     *
+     * @param x the x-coordinate of the bullet in meters
+     * @param y the y-coordinate of the bullet in meters
+     * @param rotation the direction of the bullet in radians
+     * @return the fired bullet, or null if there is no room for it in the entity budget
      */
-    public void shoot() {
-        if (timeToNextShoot < 0) {
-            BulletModel bullet = GameModel.getInstance().createBullet(GameModel.getInstance().getShip());
-            BulletBody body = new BulletBody(world, bullet);
+    public BulletModel fire(float x, float y, float rotation) {
+        return hasRoom(1) ? fire(model.createBullet(x, y, rotation)) : null;
+    }
+
+    /**
+     * Gives a body to a new bullet, unless bullets are lightweight.
+     *
+     * @param bullet the new bullet
+     * @return the bullet
+     */
+    private BulletModel fire(BulletModel bullet) {
+        if (bulletTracer == null) {
+            EntityBody body = bodyPool.obtain(bullet);
             body.setLinearVelocity(BULLET_SPEED);
-            timeToNextShoot = TIME_BETWEEN_SHOTS;
+            addBody(body);
         }
+        return bullet;
     }
 
     /**
@@ -239,14 +665,14 @@ public class GameController implements ContactListener {
         Body bodyB = contact.getFixtureB().getBody();
 
         if (bodyA.getUserData() instanceof BulletModel)
-            bulletCollision(bodyA);
+            bulletCollision((BulletModel) bodyA.getUserData());
         if (bodyB.getUserData() instanceof BulletModel)
-            bulletCollision(bodyB);
+            bulletCollision((BulletModel) bodyB.getUserData());
 
         if (bodyA.getUserData() instanceof BulletModel && bodyB.getUserData() instanceof AsteroidModel)
-            bulletAsteroidCollision(bodyA, bodyB);
+            bulletAsteroidCollision((BulletModel) bodyA.getUserData(), (AsteroidModel) bodyB.getUserData());
         if (bodyA.getUserData() instanceof AsteroidModel && bodyB.getUserData() instanceof BulletModel)
-            bulletAsteroidCollision(bodyB, bodyA);
+            bulletAsteroidCollision((BulletModel) bodyB.getUserData(), (AsteroidModel) bodyA.getUserData());
 
     }
 
@@ -268,25 +694,29 @@ public class GameController implements ContactListener {
     /**
      * A bullet colided with something. Lets remove it.
      *
-     * @param bulletBody the bullet that colided
+     * @param bulletModel the bullet that colided
      */
-    private void bulletCollision(Body bulletBody) {
-        ((BulletModel)bulletBody.getUserData()).setFlaggedForRemoval(true);
+    void bulletCollision(BulletModel bulletModel) {
+        model.flagForRemoval(bulletModel);
     }
 
     /**
      * A bullet collided with an asteroid. Lets remove the asteroids and break into
-     * pieces if needed.
-     * @param bulletBody the bullet that collided
-     * @param asteroidBody the asteroid that collided
+     * pieces if needed, as many as the budgets allow.
+     * @param bulletModel the bullet that collided
+     * @param asteroidModel the asteroid that collided
      */
-    private void bulletAsteroidCollision(Body bulletBody, Body asteroidBody) {
-        AsteroidModel asteroidModel = (AsteroidModel) asteroidBody.getUserData();
-        asteroidModel.setFlaggedForRemoval(true);
+    void bulletAsteroidCollision(BulletModel bulletModel, AsteroidModel asteroidModel) {
+        if (asteroidModel.isFlaggedToBeRemoved())
+            return; // Already hit by another bullet during this step
+
+        model.flagForRemoval(asteroidModel);
 
         if (asteroidModel.getSize() == AsteroidModel.AsteroidSize.BIG) {
-            for (int i = 0; i < FRAGMENT_COUNT; i++)
-                asteroidsToAdd.add(new AsteroidModel(asteroidModel.getX(), asteroidModel.getY(), (float) (asteroidModel.getRotation() * i * 2 * PI / 5), AsteroidModel.AsteroidSize.MEDIUM));
+            int fragments = fragmentCount();
+            skippedFragments += config.getFragmentCount() - fragments;
+            for (int i = 0; i < fragments; i++)
+                asteroidsToAdd.add(model.obtainAsteroid(asteroidModel.getX(), asteroidModel.getY(), (float) (asteroidModel.getRotation() * i * 2 * PI / fragments), AsteroidModel.AsteroidSize.MEDIUM));
         }
     }
 
@@ -295,29 +725,312 @@ public class GameController implements ContactListener {
      * simulation step.
      */
     public void createNewAsteroids() {
-        for (AsteroidModel asteroidModel : asteroidsToAdd) {
-            GameModel.getInstance().addAsteroid(asteroidModel);
-            if (asteroidModel.getSize() == AsteroidModel.AsteroidSize.MEDIUM) {
-                MediumAsteroidBody body = new MediumAsteroidBody(world, asteroidModel);
-                body.setLinearVelocity((float) (Math.random() * 5));
-            }
+        for (int i = 0; i < asteroidsToAdd.size(); i++) {
+            AsteroidModel asteroidModel = asteroidsToAdd.get(i);
+            model.addAsteroid(asteroidModel);
+            EntityBody body = bodyPool.obtain(asteroidModel);
+            if (asteroidModel.getSize() == AsteroidModel.AsteroidSize.MEDIUM)
+                body.setLinearVelocity(model.getRandom().nextFloat() * 5);
+            addBody(body);
         }
         asteroidsToAdd.clear();
     }
 
+    /**
+     * Adds an asteroid to the game. The asteroid will be created
+     * together with the next asteroid fragments.
+     *
+     * @param asteroidModel the asteroid to be added
+     */
+    public void addAsteroid(AsteroidModel asteroidModel) {
+        asteroidsToAdd.add(asteroidModel);
+    }
+
     /**
      * Removes objects that have been flagged for removal on the
-     * previous step.
+     * previous step. Only the flagged objects are visited. Their
+     * bodies are deactivated and kept to be reused.
      */
     public void removeFlagged() {
-        Array<Body> bodies = new Array<Body>();
-        world.getBodies(bodies);
-        for (Body body : bodies) {
-            if (((EntityModel)body.getUserData()).isFlaggedToBeRemoved()) {
-                GameModel.getInstance().remove((EntityModel) body.getUserData());
-                world.destroyBody(body);
+        Array<EntityModel> queue = model.getRemovalQueue();
+        for (int i = 0; i < queue.size; i++) {
+            EntityModel removed = queue.get(i);
+            EntityBody body = removeBody(removed);
+            if (body != null)
+                bodyPool.free(body);
+            model.remove(removed);
+        }
+        queue.clear();
+    }
+
+    /**
+     * Returns the number of bytes needed to snapshot the current state.
+     *
+     * @return the size of a snapshot in bytes
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER_SIZE
+                + model.getStore().size() * SNAPSHOT_ENTITY_SIZE
+                + model.getRemovalQueue().size * 4
+                + asteroidsToAdd.size() * SNAPSHOT_PENDING_SIZE;
+    }
+
+    /**
+     * Writes the state of the game into a buffer, starting at its current
+     * position, using a fixed little-endian layout:
+     *
+     * - a header with the random generator state, the accumulator, the gun
+     *   cool down, the latched input and the number of entries that follow;
+     * - every entity in store order, with its type, removal flag, position,
+     *   rotation, time to live and, if it has a body, its velocities;
+     * - the store index of each entity waiting to be removed;
+     * - the asteroids waiting to be created.
+     *
+     * Nothing is allocated, so a game can be snapshot on every step.
+     * The internal state of Box2D, such as cached contacts, is not part
+     * of the snapshot.
+     *
+     * @param buffer the buffer, with at least getSnapshotSize bytes remaining
+     */
+    public void snapshot(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        EntityStore store = model.getStore();
+        Array<EntityModel> queue = model.getRemovalQueue();
+
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(SNAPSHOT_VERSION);
+        buffer.putLong(model.getRandom().getState(0));
+        buffer.putLong(model.getRandom().getState(1));
+        buffer.putFloat(accumulator);
+        buffer.putFloat(player.timeToNextShoot);
+        buffer.putFloat(player.input.getRotation());
+        buffer.put((byte) (player.input.isAccelerating() ? 1 : 0));
+        buffer.put((byte) (player.input.isShooting() ? 1 : 0));
+        buffer.putShort((short) 0);
+        buffer.putInt(store.size());
+        buffer.putInt(queue.size);
+        buffer.putInt(asteroidsToAdd.size());
+
+        for (int i = 0; i < store.size(); i++) {
+            int handle = store.getHandle(i);
+            EntityBody body = hasBody(handle) ? bodies[handle] : null;
+
+            buffer.put((byte) store.getType(i).ordinal());
+            buffer.put((byte) (store.hasFlag(i, EntityStore.FLAG_REMOVAL) ? 1 : 0));
+            buffer.put(body == null ? 0 : body.isAwake() ? SNAPSHOT_BODY | SNAPSHOT_AWAKE : SNAPSHOT_BODY);
+            buffer.put((byte) 0);
+            buffer.putFloat(store.getX(i));
+            buffer.putFloat(store.getY(i));
+            buffer.putFloat(store.getRotation(i));
+            buffer.putFloat(store.getTimeToLive(i));
+            if (body != null) {
+                Vector2 velocity = body.getLinearVelocity();
+                buffer.putFloat(velocity.x);
+                buffer.putFloat(velocity.y);
+                buffer.putFloat(body.getAngularVelocity());
+            } else {
+                buffer.putFloat(0);
+                buffer.putFloat(0);
+                buffer.putFloat(0);
             }
         }
+
+        for (int i = 0; i < queue.size; i++)
+            buffer.putInt(store.indexOf(queue.get(i).getHandle()));
+
+        for (int i = 0; i < asteroidsToAdd.size(); i++) {
+            AsteroidModel asteroid = asteroidsToAdd.get(i);
+            buffer.putFloat(asteroid.getX());
+            buffer.putFloat(asteroid.getY());
+            buffer.putFloat(asteroid.getRotation());
+            buffer.put((byte) asteroid.getSize().ordinal());
+            buffer.put((byte) 0);
+            buffer.putShort((short) 0);
+        }
+    }
+
+    /**
+     * Restores the state of the game from a snapshot, starting at the
+     * current position of the buffer. Existing entities of the right type
+     * are moved into place and updated, and only missing entities are
+     * created from pooled models and bodies, so restoring a recent
+     * snapshot mostly avoids adding and removing Box2D bodies. As cached
+     * contacts are not restored, the restored game may not continue
+     * exactly like the original one did.
+     *
+     * @param buffer the buffer holding a snapshot
+     * @throws IllegalArgumentException if the buffer does not hold a snapshot
+     */
+    public void restore(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION)
+            throw new IllegalArgumentException("Not a snapshot");
+
+        EntityStore store = model.getStore();
+
+        long state0 = buffer.getLong();
+        model.getRandom().setState(state0, buffer.getLong());
+        accumulator = buffer.getFloat();
+        player.timeToNextShoot = buffer.getFloat();
+        player.input.setRotation(buffer.getFloat());
+        player.input.setAccelerating(buffer.get() != 0);
+        player.input.setShooting(buffer.get() != 0);
+        buffer.getShort();
+        int entities = buffer.getInt();
+        int removals = buffer.getInt();
+        int pending = buffer.getInt();
+
+        model.getRemovalQueue().clear();
+        for (int i = 0; i < asteroidsToAdd.size(); i++)
+            model.discardAsteroid(asteroidsToAdd.get(i));
+        asteroidsToAdd.clear();
+
+        for (int i = 0; i < entities; i++) {
+            EntityModel.ModelType type = TYPES[buffer.get()];
+            boolean flagged = buffer.get() != 0;
+            byte bodyState = buffer.get();
+            buffer.get();
+            float x = buffer.getFloat(), y = buffer.getFloat(), rotation = buffer.getFloat(), timeToLive = buffer.getFloat();
+            float vx = buffer.getFloat(), vy = buffer.getFloat(), omega = buffer.getFloat();
+            boolean hasBody = (bodyState & SNAPSHOT_BODY) != 0;
+
+            if (!matches(i, type, hasBody)) {
+                int match = i;
+                while (match < store.size() && !matches(match, type, hasBody))
+                    match++;
+                if (match == store.size())
+                    create(type, x, y, rotation, hasBody);
+                if (match != i)
+                    store.swap(i, match);
+            }
+
+            EntityModel entity = store.getModel(i);
+            entity.setPosition(x, y);
+            entity.setRotation(rotation);
+            entity.setFlaggedForRemoval(flagged);
+            store.setTimeToLive(i, timeToLive);
+
+            if (hasBody) {
+                EntityBody body = bodies[entity.getHandle()];
+                body.setTransform(x, y, rotation);
+                body.setLinearVelocity(vx, vy);
+                body.setAngularVelocity(omega);
+                body.setAwake((bodyState & SNAPSHOT_AWAKE) != 0);
+            }
+        }
+        truncate(entities);
+        updateGhosts();
+
+        for (int i = 0; i < removals; i++)
+            model.getRemovalQueue().add(store.getModel(buffer.getInt()));
+
+        for (int i = 0; i < pending; i++) {
+            float x = buffer.getFloat(), y = buffer.getFloat(), rotation = buffer.getFloat();
+            AsteroidModel.AsteroidSize size = AsteroidModel.AsteroidSize.values()[buffer.get()];
+            buffer.get();
+            buffer.getShort();
+            asteroidsToAdd.add(model.obtainAsteroid(x, y, rotation, size));
+        }
+    }
+
+    /**
+     * Verifies if the entity at a certain index of the store can take
+     * the state of an entity in a snapshot.
+     *
+     * @param index the index of the entity
+     * @param type the type of the entity in the snapshot
+     * @param hasBody if the entity in the snapshot has a physics body
+     * @return true if the entity can take the state
+     */
+    private boolean matches(int index, EntityModel.ModelType type, boolean hasBody) {
+        EntityStore store = model.getStore();
+        return index < store.size() && store.getType(index) == type && hasBody(store.getHandle(index)) == hasBody;
+    }
+
+    /**
+     * Removes every entity after a certain index of the store. The
+     * entities are removed from the last one, so no other entity moves.
+     *
+     * @param size the number of entities to keep
+     */
+    private void truncate(int size) {
+        EntityStore store = model.getStore();
+        while (store.size() > size) {
+            EntityModel removed = store.getModel(store.size() - 1);
+            if (removed.getType() == EntityModel.ModelType.SHIP)
+                throw new IllegalArgumentException("The snapshot does not match this game");
+            EntityBody body = removeBody(removed);
+            if (body != null)
+                bodyPool.free(body);
+            model.remove(removed);
+        }
+    }
+
+    /**
+     * Creates an entity at the end of the store while restoring a snapshot.
+     *
+     * @param type the type of the entity
+     * @param x the x-coordinate of the entity
+     * @param y the y-coordinate of the entity
+     * @param rotation the rotation of the entity
+     * @param hasBody should the entity have a physics body
+     */
+    private void create(EntityModel.ModelType type, float x, float y, float rotation, boolean hasBody) {
+        EntityModel created;
+        if (type == EntityModel.ModelType.BULLET)
+            created = model.createBullet(x, y, rotation);
+        else if (type == EntityModel.ModelType.BIGASTEROID || type == EntityModel.ModelType.MEDIUMASTEROID) {
+            AsteroidModel asteroid = model.obtainAsteroid(x, y, rotation, type == EntityModel.ModelType.BIGASTEROID ? AsteroidModel.AsteroidSize.BIG : AsteroidModel.AsteroidSize.MEDIUM);
+            model.addAsteroid(asteroid);
+            created = asteroid;
+        } else
+            throw new IllegalArgumentException("The snapshot does not match this game");
+
+        if (hasBody)
+            addBody(bodyPool.obtain(created));
+    }
+
+    /**
+     * Returns if the entity with a certain handle has a physics body.
+     *
+     * @param handle the handle of the entity
+     * @return true if the entity has a body
+     */
+    boolean hasBody(int handle) {
+        return handle < bodies.length && bodies[handle] != null;
+    }
+
+    /**
+     * Adds a body to the bodies living in the physics world.
+     *
+     * @param body the body to be added
+     */
+    private void addBody(EntityBody body) {
+        int handle = body.getModel().getHandle();
+        if (handle >= bodies.length) {
+            bodies = Arrays.copyOf(bodies, Math.max(handle + 1, bodies.length * 2));
+            sleeping = Arrays.copyOf(sleeping, bodies.length);
+        }
+        bodies[handle] = body;
+        sleeping[handle] = false;
+    }
+
+    /**
+     * Removes the body of a model, and its ghosts, from the bodies
+     * living in the physics world.
+     *
+     * @param model the model whose body is to be removed
+     * @return the removed body or null if the model had no body
+     */
+    private EntityBody removeBody(EntityModel model) {
+        int handle = model.getHandle();
+        if (handle < 0 || handle >= bodies.length) return null;
+
+        EntityBody body = bodies[handle];
+        bodies[handle] = null;
+        if (body != null)
+            ghosts.remove(handle);
+        return body;
     }
 }
 
@@ -0,0 +1,180 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.ArenaConfig;
+import com.badlogic.gdx.utils.ByteArray;
+
+/**
+ * Records the input applied on every simulation step into a compact
+ * binary stream that can be played back by an InputReplay.
+ *
+ * The stream starts with a header holding the settings of the recorded
+ * game: a flags byte telling if bullets were lightweight, the seed and
+ * the fingerprint of the arena configuration. It is followed by runs of consecutive steps sharing the same input.
+ * Each run is a flags byte, the rotation (only when it changed since the
+ * previous run) and the number of steps as a variable length integer,
+ * so a player holding the same keys for a long time costs a few bytes.
+ *
+ * Touch and gyroscope input are recorded after being resolved into
+ * ship commands, as that is all the simulation sees.
+ */
+public class InputRecorder {
+    /**
+     * Identifies input recordings.
+     */
+    static final int MAGIC = 0x41414952;
+
+    /**
+     * The version of the recording format.
+     */
+    static final byte VERSION = 2;
+
+    /**
+     * Flag set in the header of games with lightweight bullets.
+     */
+    static final int LIGHTWEIGHT_BULLETS = 0x01;
+
+    /**
+     * Flag set on runs where the ship accelerates.
+     */
+    static final int ACCELERATING = 0x01;
+
+    /**
+     * Flag set on runs where the ship shoots.
+     */
+    static final int SHOOTING = 0x02;
+
+    /**
+     * Flag set on runs followed by a new rotation.
+     */
+    static final int ROTATION = 0x04;
+
+    /**
+     * The header and the runs recorded so far.
+     */
+    private final ByteArray bytes = new ByteArray();
+
+    /**
+     * The input of the current run.
+     */
+    private final ShipInput current = new ShipInput();
+
+    /**
+     * The rotation written in the last run.
+     */
+    private float rotation;
+
+    /**
+     * Number of steps in the current run.
+     */
+    private int run;
+
+    /**
+     * Number of steps recorded.
+     */
+    private int steps;
+
+    /**
+     * Creates a recorder for a game.
+     *
+     * @param seed the seed of the recorded game
+     * @param config the parameters of the recorded arena
+     * @param lightweightBullets does the recorded game fire lightweight bullets
+     */
+    public InputRecorder(long seed, ArenaConfig config, boolean lightweightBullets) {
+        writeInt(MAGIC);
+        bytes.add(VERSION);
+        bytes.add((byte) (lightweightBullets ? LIGHTWEIGHT_BULLETS : 0));
+        writeInt((int) (seed >>> 32));
+        writeInt((int) seed);
+        writeInt(config.fingerprint());
+    }
+
+    /**
+     * Records the input applied on a step.
+     *
+     * @param input the input applied
+     */
+    public void record(ShipInput input) {
+        if (run > 0 && !sameAs(input)) {
+            writeRun();
+            run = 0;
+        }
+        current.set(input);
+        run++;
+        steps++;
+    }
+
+    /**
+     * Returns the number of steps recorded.
+     *
+     * @return the number of steps
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the recording of every step so far. Recording may continue
+     * afterwards.
+     *
+     * @return the recording
+     */
+    public byte[] toBytes() {
+        int size = bytes.size;
+        float last = rotation;
+
+        if (run > 0) writeRun();
+        byte[] result = bytes.toArray();
+
+        bytes.size = size;
+        rotation = last;
+        return result;
+    }
+
+    /**
+     * Compares an input with the input of the current run.
+     *
+     * @param input the input
+     * @return true if they are equal
+     */
+    private boolean sameAs(ShipInput input) {
+        return input.getRotation() == current.getRotation()
+                && input.isAccelerating() == current.isAccelerating()
+                && input.isShooting() == current.isShooting();
+    }
+
+    /**
+     * Writes the current run.
+     */
+    private void writeRun() {
+        int flags = 0;
+        if (current.isAccelerating()) flags |= ACCELERATING;
+        if (current.isShooting()) flags |= SHOOTING;
+        if (current.getRotation() != rotation) flags |= ROTATION;
+
+        bytes.add((byte) flags);
+        if ((flags & ROTATION) != 0) {
+            rotation = current.getRotation();
+            writeInt(Float.floatToIntBits(rotation));
+        }
+
+        int value = run;
+        while ((value & ~0x7f) != 0) {
+            bytes.add((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        bytes.add((byte) value);
+    }
+
+    /**
+     * Writes an integer, most significant byte first.
+     *
+     * @param value the integer
+     */
+    private void writeInt(int value) {
+        bytes.add((byte) (value >>> 24));
+        bytes.add((byte) (value >>> 16));
+        bytes.add((byte) (value >>> 8));
+        bytes.add((byte) value);
+    }
+}
@@ -0,0 +1,151 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.ArenaConfig;
+
+import static com.aor.arena.controller.InputRecorder.ACCELERATING;
+import static com.aor.arena.controller.InputRecorder.LIGHTWEIGHT_BULLETS;
+import static com.aor.arena.controller.InputRecorder.MAGIC;
+import static com.aor.arena.controller.InputRecorder.ROTATION;
+import static com.aor.arena.controller.InputRecorder.SHOOTING;
+import static com.aor.arena.controller.InputRecorder.VERSION;
+
+/**
+ * Plays back a recording made by an InputRecorder, one step at a time.
+ */
+public class InputReplay {
+    /**
+     * The recording.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Did the recorded game fire lightweight bullets.
+     */
+    private final boolean lightweightBullets;
+
+    /**
+     * The seed of the recorded game.
+     */
+    private final long seed;
+
+    /**
+     * The fingerprint of the parameters of the recorded arena.
+     */
+    private final int configFingerprint;
+
+    /**
+     * The position of the next run in the recording.
+     */
+    private int position;
+
+    /**
+     * The input of the current run.
+     */
+    private final ShipInput current = new ShipInput();
+
+    /**
+     * Number of steps left in the current run.
+     */
+    private int run;
+
+    /**
+     * Creates a replay of a recording.
+     *
+     * @param bytes the recording
+     * @throws IllegalArgumentException if the bytes are not a recording
+     */
+    public InputReplay(byte[] bytes) {
+        this.bytes = bytes;
+
+        if (bytes.length < 18 || readInt() != MAGIC)
+            throw new IllegalArgumentException("Not an input recording");
+        if (bytes[position++] != VERSION)
+            throw new IllegalArgumentException("Unsupported input recording version");
+
+        lightweightBullets = (bytes[position++] & LIGHTWEIGHT_BULLETS) != 0;
+        long high = readInt();
+        seed = (high << 32) | (readInt() & 0xffffffffL);
+        configFingerprint = readInt();
+    }
+
+    /**
+     * Returns if the recorded game fired lightweight bullets. The replay
+     * is only faithful if played with the same kind of bullets.
+     *
+     * @return true if bullets were lightweight
+     */
+    public boolean isLightweightBullets() {
+        return lightweightBullets;
+    }
+
+    /**
+     * Returns the seed of the recorded game. The replay is only faithful
+     * if played on a game created with this seed.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Verifies that the recorded game was played in an arena with
+     * certain parameters, as the replay is only faithful if played there.
+     *
+     * @param config the parameters of the arena
+     * @throws IllegalArgumentException if the recorded arena had other parameters
+     */
+    public void checkConfig(ArenaConfig config) {
+        if (config.fingerprint() != configFingerprint)
+            throw new IllegalArgumentException("The input was recorded in an arena with another configuration");
+    }
+
+    /**
+     * Reads the input of the next step.
+     *
+     * @param input the input to be filled
+     * @return false if there are no more steps
+     */
+    public boolean next(ShipInput input) {
+        if (run == 0) {
+            if (position == bytes.length)
+                return false;
+            readRun();
+        }
+        run--;
+        input.set(current);
+        return true;
+    }
+
+    /**
+     * Reads the next run.
+     */
+    private void readRun() {
+        int flags = bytes[position++];
+        current.setAccelerating((flags & ACCELERATING) != 0);
+        current.setShooting((flags & SHOOTING) != 0);
+        if ((flags & ROTATION) != 0)
+            current.setRotation(Float.intBitsToFloat(readInt()));
+
+        int shift = 0;
+        int value;
+        run = 0;
+        do {
+            value = bytes[position++];
+            run |= (value & 0x7f) << shift;
+            shift += 7;
+        } while ((value & 0x80) != 0);
+    }
+
+    /**
+     * Reads an integer, most significant byte first.
+     *
+     * @return the integer
+     */
+    private int readInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+            value = (value << 8) | (bytes[position++] & 0xff);
+        return value;
+    }
+}
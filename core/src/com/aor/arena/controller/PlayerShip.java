@@ -0,0 +1,40 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.controller.entities.EntityBody;
+import com.aor.arena.model.entities.ShipModel;
+
+/**
+ * A space ship flown by a player: its body, the commands given to it
+ * and the state of its gun.
+ */
+class PlayerShip {
+    /**
+     * The body of the ship.
+     */
+    final EntityBody body;
+
+    /**
+     * The model of the ship.
+     */
+    final ShipModel model;
+
+    /**
+     * The commands given to the ship, applied by every step.
+     */
+    final ShipInput input = new ShipInput();
+
+    /**
+     * Time left until the gun cools down.
+     */
+    float timeToNextShoot;
+
+    /**
+     * Creates a ship flown by a player.
+     *
+     * @param body the body of the ship
+     */
+    PlayerShip(EntityBody body) {
+        this.body = body;
+        this.model = (ShipModel) body.getModel();
+    }
+}
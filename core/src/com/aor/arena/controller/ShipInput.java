@@ -0,0 +1,117 @@
+package com.aor.arena.controller;
+
+/**
+ * The commands given to the space ship. Inputs are latched: they are
+ * set once per frame and applied, unchanged, by every fixed simulation
+ * step of that frame, so the simulation does not depend on how long
+ * each frame took to render.
+ */
+public class ShipInput {
+    /**
+     * How fast the ship should rotate, as a fraction of its rotation
+     * speed. Positive values rotate left and negative values right.
+     */
+    private float rotation;
+
+    /**
+     * Should the ship accelerate.
+     */
+    private boolean accelerating;
+
+    /**
+     * Should the ship shoot.
+     */
+    private boolean shooting;
+
+    /**
+     * Releases every command.
+     */
+    public void clear() {
+        rotation = 0;
+        accelerating = false;
+        shooting = false;
+    }
+
+    /**
+     * Copies the commands of another input.
+     *
+     * @param other the input to copy
+     */
+    public void set(ShipInput other) {
+        rotation = other.rotation;
+        accelerating = other.accelerating;
+        shooting = other.shooting;
+    }
+
+    /**
+     * Rotates the ship left.
+     *
+     * @param amount fraction of the rotation speed
+     */
+    public void rotateLeft(float amount) {
+        rotation += amount;
+    }
+
+    /**
+     * Rotates the ship right.
+     *
+     * @param amount fraction of the rotation speed
+     */
+    public void rotateRight(float amount) {
+        rotation -= amount;
+    }
+
+    /**
+     * Sets how fast the ship should rotate.
+     *
+     * @param rotation fraction of the rotation speed, positive to the left
+     */
+    public void setRotation(float rotation) {
+        this.rotation = rotation;
+    }
+
+    /**
+     * Returns how fast the ship should rotate.
+     *
+     * @return fraction of the rotation speed, positive to the left
+     */
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Sets if the ship should accelerate.
+     *
+     * @param accelerating true to accelerate
+     */
+    public void setAccelerating(boolean accelerating) {
+        this.accelerating = accelerating;
+    }
+
+    /**
+     * Returns if the ship should accelerate.
+     *
+     * @return true to accelerate
+     */
+    public boolean isAccelerating() {
+        return accelerating;
+    }
+
+    /**
+     * Sets if the ship should shoot.
+     *
+     * @param shooting true to shoot
+     */
+    public void setShooting(boolean shooting) {
+        this.shooting = shooting;
+    }
+
+    /**
+     * Returns if the ship should shoot.
+     *
+     * @return true to shoot
+     */
+    public boolean isShooting() {
+        return shooting;
+    }
+}
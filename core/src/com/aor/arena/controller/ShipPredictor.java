@@ -0,0 +1,306 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.controller.entities.EntityBody;
+import com.aor.arena.controller.entities.ShipBody;
+import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+
+import static com.aor.arena.controller.GameController.POSITION_ITERATIONS;
+import static com.aor.arena.controller.GameController.STEP;
+import static com.aor.arena.controller.GameController.VELOCITY_ITERATIONS;
+
+/**
+ * Predicts the ship of a client of an arena server, so the ship answers
+ * its input on the next frame instead of one round trip later.
+ *
+ * Each input is applied right away to a copy of the ship body, alone in
+ * its own world, and kept with a sequence number and the predicted state
+ * it led to. The server reports which input it applied last and the
+ * state of the ship afterwards. If the prediction for that input was
+ * wrong, usually because the ship hit something the client does not
+ * simulate, the body is moved to the reported state and the inputs the
+ * server has not applied yet are replayed on top of it. Nothing but the
+ * ship of the client is ever rewound.
+ *
+ * Bullets are not predicted: shooting is only applied by the server.
+ */
+public class ShipPredictor {
+    /**
+     * Number of inputs kept, which bounds the round trip that can be
+     * reconciled to about two seconds.
+     */
+    public static final int HISTORY = 128;
+
+    /**
+     * How far a prediction may be from the server state before it is
+     * corrected, in meters.
+     */
+    private static final float POSITION_TOLERANCE = 0.01f;
+
+    /**
+     * How far a predicted rotation may be from the server state before
+     * it is corrected, in radians.
+     */
+    private static final float ROTATION_TOLERANCE = 0.01f;
+
+    /**
+     * Number of values in a predicted state: position, rotation, linear
+     * velocity and angular velocity.
+     */
+    private static final int STATE_SIZE = 6;
+
+    /**
+     * The world holding the predicted ship alone.
+     */
+    private final World world;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The body of the predicted ship.
+     */
+    private final EntityBody body;
+
+    /**
+     * The inputs kept, indexed by sequence modulo HISTORY.
+     */
+    private final ShipInput[] inputs = new ShipInput[HISTORY];
+
+    /**
+     * The state predicted after each input kept.
+     */
+    private final float[] states = new float[HISTORY * STATE_SIZE];
+
+    /**
+     * The sequence number of the next input.
+     */
+    private int nextSequence;
+
+    /**
+     * Number of server states compared with a prediction.
+     */
+    private int reconciliations;
+
+    /**
+     * Number of predictions corrected.
+     */
+    private int corrections;
+
+    /**
+     * Sum of the position errors corrected, in meters.
+     */
+    private double correctedError;
+
+    /**
+     * Creates a predictor for a ship.
+     *
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     * @param x the x-coordinate of the ship in meters
+     * @param y the y-coordinate of the ship in meters
+     * @param rotation the rotation of the ship in radians
+     */
+    public ShipPredictor(float width, float height, float x, float y, float rotation) {
+        world = new World(new Vector2(0, 0), true);
+        this.width = width;
+        this.height = height;
+        ShipModel model = new ShipModel(x, y, 0);
+        model.setRotation(rotation);
+        body = new ShipBody(world, model);
+
+        for (int i = 0; i < HISTORY; i++)
+            inputs[i] = new ShipInput();
+    }
+
+    /**
+     * Applies an input to the predicted ship for one step.
+     *
+     * @param input the commands given to the ship
+     * @return the sequence number of the input, to be sent with it
+     */
+    public int predict(ShipInput input) {
+        int sequence = nextSequence++;
+        int slot = sequence & (HISTORY - 1);
+        inputs[slot].set(input);
+        step(inputs[slot]);
+        save(slot);
+        return sequence;
+    }
+
+    /**
+     * Compares the state of the ship reported by the server with the
+     * one predicted for the same input, and corrects the prediction if
+     * they differ.
+     *
+     * @param sequence the last input applied by the server, or -1 if none
+     * @param x the x-coordinate of the ship in meters
+     * @param y the y-coordinate of the ship in meters
+     * @param rotation the rotation of the ship in radians
+     * @param vx the x-component of the velocity of the ship
+     * @param vy the y-component of the velocity of the ship
+     * @param omega the angular velocity of the ship
+     */
+    public void reconcile(int sequence, float x, float y, float rotation, float vx, float vy, float omega) {
+        if (sequence >= nextSequence) return;
+
+        boolean kept = sequence >= 0 && sequence >= nextSequence - HISTORY;
+        int slot = sequence & (HISTORY - 1);
+        if (kept) {
+            reconciliations++;
+            int offset = slot * STATE_SIZE;
+            float error = distance(states[offset], states[offset + 1], x, y);
+            if (error <= POSITION_TOLERANCE && Math.abs(angleDifference(states[offset + 2], rotation)) <= ROTATION_TOLERANCE)
+                return;
+            corrections++;
+            correctedError += error;
+        }
+
+        body.setTransform(x, y, rotation);
+        body.setLinearVelocity(vx, vy);
+        body.setAngularVelocity(omega);
+        if (kept)
+            save(slot);
+
+        for (int s = Math.max(sequence + 1, nextSequence - HISTORY); s < nextSequence; s++) {
+            step(inputs[s & (HISTORY - 1)]);
+            save(s & (HISTORY - 1));
+        }
+    }
+
+    /**
+     * Returns the predicted x-coordinate of the ship.
+     *
+     * @return the x-coordinate in meters
+     */
+    public float getX() {
+        return body.getX();
+    }
+
+    /**
+     * Returns the predicted y-coordinate of the ship.
+     *
+     * @return the y-coordinate in meters
+     */
+    public float getY() {
+        return body.getY();
+    }
+
+    /**
+     * Returns the predicted rotation of the ship.
+     *
+     * @return the rotation in radians
+     */
+    public float getRotation() {
+        return body.getAngle();
+    }
+
+    /**
+     * Returns the number of server states compared with a prediction.
+     *
+     * @return the number of reconciliations
+     */
+    public int getReconciliations() {
+        return reconciliations;
+    }
+
+    /**
+     * Returns the number of predictions corrected.
+     *
+     * @return the number of corrections
+     */
+    public int getCorrections() {
+        return corrections;
+    }
+
+    /**
+     * Returns the sum of the position errors corrected.
+     *
+     * @return the sum of the errors in meters
+     */
+    public double getCorrectedError() {
+        return correctedError;
+    }
+
+    /**
+     * Disposes of the world of the predicted ship.
+     */
+    public void dispose() {
+        world.dispose();
+    }
+
+    /**
+     * Simulates the predicted ship for one step, wrapping it around the
+     * arena edges like the controller does.
+     *
+     * @param input the commands given to the ship
+     */
+    private void step(ShipInput input) {
+        GameController.steer(body, input);
+        world.step(STEP, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+
+        float x = body.getX(), y = body.getY();
+        boolean wrapped = false;
+        if (x < 0) { x += width; wrapped = true; }
+        if (y < 0) { y += height; wrapped = true; }
+        if (x > width) { x -= width; wrapped = true; }
+        if (y > height) { y -= height; wrapped = true; }
+        if (wrapped)
+            body.setTransform(x, y, body.getAngle());
+    }
+
+    /**
+     * Keeps the current state of the predicted ship.
+     *
+     * @param slot the slot of the input that led to it
+     */
+    private void save(int slot) {
+        int offset = slot * STATE_SIZE;
+        Vector2 velocity = body.getLinearVelocity();
+        states[offset] = body.getX();
+        states[offset + 1] = body.getY();
+        states[offset + 2] = body.getAngle();
+        states[offset + 3] = velocity.x;
+        states[offset + 4] = velocity.y;
+        states[offset + 5] = body.getAngularVelocity();
+    }
+
+    /**
+     * Returns the distance between two points, across the arena edges
+     * if that is shorter.
+     *
+     * @param x1 the x-coordinate of the first point
+     * @param y1 the y-coordinate of the first point
+     * @param x2 the x-coordinate of the second point
+     * @param y2 the y-coordinate of the second point
+     * @return the distance in meters
+     */
+    private float distance(float x1, float y1, float x2, float y2) {
+        float dx = Math.abs(x1 - x2), dy = Math.abs(y1 - y2);
+        dx = Math.min(dx, width - dx);
+        dy = Math.min(dy, height - dy);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the difference between two rotations, in the shortest direction.
+     *
+     * @param a the first rotation in radians
+     * @param b the second rotation in radians
+     * @return the difference, between minus and plus half a turn
+     */
+    private static float angleDifference(float a, float b) {
+        double difference = (a - b) % (Math.PI * 2);
+        if (difference > Math.PI) difference -= Math.PI * 2;
+        if (difference < -Math.PI) difference += Math.PI * 2;
+        return (float) difference;
+    }
+}
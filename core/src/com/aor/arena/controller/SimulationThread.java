@@ -0,0 +1,213 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.GameModel;
+import com.aor.arena.model.StateFrame;
+import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a game on its own thread, one step every STEP seconds, so the
+ * rendering thread never waits for the physics and a slow frame does
+ * not make the simulation drop steps.
+ *
+ * After falling behind, the thread catches up by simulating steps back
+ * to back, as many as the step policy of the game allows for the time
+ * since it last caught up, and the steps it could not catch up on are
+ * dropped. It then rests for a step, so a machine that can not simulate
+ * the game in real time still has time left for rendering.
+ *
+ * After every step, the transform of every entity is published to a
+ * state buffer, to be interpolated by the rendering thread. The input
+ * of the spaceship goes the other way: it is latched by the rendering
+ * thread and copied into the controller before each step.
+ *
+ * Once started, the game must only be accessed by this thread until
+ * it is stopped.
+ */
+public class SimulationThread implements Runnable {
+    /**
+     * The duration of each simulation step in nanoseconds.
+     */
+    public static final long STEP_NANOS = (long) (GameController.STEP * 1e9);
+
+    /**
+     * The controller of the simulated game.
+     */
+    private final GameController controller;
+
+    /**
+     * The frames published after each step.
+     */
+    private final StateBuffer states = new StateBuffer();
+
+    /**
+     * The input latched by the rendering thread, guarded by itself.
+     */
+    private final ShipInput input = new ShipInput();
+
+    /**
+     * The thread running the simulation, or null if not started.
+     */
+    private Thread thread;
+
+    /**
+     * Is the simulation paused.
+     */
+    private volatile boolean paused;
+
+    /**
+     * Was the simulation stopped.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * What stopped the simulation because of an error, or null.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Creates a simulation thread for a game.
+     *
+     * @param controller the controller of the game
+     */
+    public SimulationThread(GameController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Starts simulating the game.
+     */
+    public void start() {
+        thread = new Thread(this, "Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops simulating the game and waits for the current step to end.
+     * The game can be accessed by other threads afterwards.
+     */
+    public void stop() {
+        stopped = true;
+        if (thread == null) return;
+
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Pauses or resumes the simulation. Time spent paused is not simulated.
+     *
+     * @param paused true to pause the simulation
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Latches the commands given to the spaceship. They are applied by
+     * every step until they are changed.
+     *
+     * @param input the spaceship input
+     */
+    public void setInput(ShipInput input) {
+        synchronized (this.input) {
+            this.input.set(input);
+        }
+    }
+
+    /**
+     * Returns the frames published after each step.
+     *
+     * @return the state buffer
+     */
+    public StateBuffer getStates() {
+        return states;
+    }
+
+    /**
+     * Throws the error that stopped the simulation, if any.
+     *
+     * @throws GdxRuntimeException if the simulation failed
+     */
+    public void checkFailure() {
+        if (failure != null)
+            throw new GdxRuntimeException("The simulation failed", failure);
+    }
+
+    /**
+     * Simulates the game until stopped.
+     */
+    @Override
+    public void run() {
+        try {
+            StepPolicy policy = controller.getStepPolicy();
+            publish(System.nanoTime());
+
+            long next = System.nanoTime() + STEP_NANOS;
+            long caughtUp = System.nanoTime();
+            int steps = 0, substeps = 0;
+            while (!stopped) {
+                long now = System.nanoTime();
+                if (paused) {
+                    next = now + STEP_NANOS;
+                    steps = 0;
+                    LockSupport.parkNanos(STEP_NANOS);
+                    continue;
+                }
+                if (now < next) {
+                    steps = 0;
+                    LockSupport.parkNanos(next - now);
+                    continue;
+                }
+                if (steps == 0) {
+                    substeps = policy.getMaxSubsteps((now - caughtUp) / 1e9f, controller.getAverageStepTime());
+                    caughtUp = now;
+                }
+                if (steps == substeps) {
+                    policy.drop((now + STEP_NANOS - next) / 1e9f);
+                    next = now + STEP_NANOS;
+                    steps = 0;
+                    continue;
+                }
+
+                synchronized (input) {
+                    controller.getInput().set(input);
+                }
+                controller.step();
+                policy.adapt(controller.getAverageStepTime());
+                publish(next);
+                next += STEP_NANOS;
+                steps++;
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Publishes the state of the game after a step.
+     *
+     * @param time when the step was simulated, in nanoseconds
+     */
+    private void publish(long time) {
+        GameModel model = controller.getModel();
+        ShipModel ship = model.getShip();
+
+        StateFrame frame = states.obtain();
+        frame.copy(model.getStore(), ship.isAccelerating(), time);
+        ship.setAccelerating(false);
+        states.publish(frame);
+    }
+}
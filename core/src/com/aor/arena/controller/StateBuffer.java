@@ -0,0 +1,111 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.StateFrame;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Hands frames over from the simulation thread to the rendering thread.
+ *
+ * The simulation thread fills a free frame and publishes it, keeping the
+ * last two published frames. The rendering thread acquires those two,
+ * interpolates between them, and releases them when done. Neither thread
+ * waits for the other: frames being published or read are never handed
+ * out for writing, and a new frame is created when no other is free,
+ * which stops happening after the first few steps.
+ */
+public class StateBuffer {
+    /**
+     * Every frame, free or not.
+     */
+    private final Array<StateFrame> frames = new Array<StateFrame>();
+
+    /**
+     * The frame published before the latest one, or null.
+     */
+    private StateFrame previous;
+
+    /**
+     * The latest frame published, or null.
+     */
+    private StateFrame latest;
+
+    /**
+     * The frame being written by the simulation thread, or null.
+     */
+    private StateFrame writing;
+
+    /**
+     * The older frame being read by the rendering thread, or null.
+     */
+    private StateFrame readPrevious;
+
+    /**
+     * The newer frame being read by the rendering thread, or null.
+     */
+    private StateFrame readLatest;
+
+    /**
+     * Returns a frame to be filled and published by the simulation thread.
+     *
+     * @return a frame not in use by any thread
+     */
+    public synchronized StateFrame obtain() {
+        for (StateFrame frame : frames)
+            if (frame != previous && frame != latest && frame != readPrevious && frame != readLatest && frame != writing)
+                return writing = frame;
+
+        writing = new StateFrame();
+        frames.add(writing);
+        return writing;
+    }
+
+    /**
+     * Publishes the frame filled by the simulation thread.
+     *
+     * @param frame the frame, as returned by obtain
+     */
+    public synchronized void publish(StateFrame frame) {
+        previous = latest;
+        latest = frame;
+        writing = null;
+    }
+
+    /**
+     * Acquires the last two frames published, to be read by the
+     * rendering thread until released.
+     *
+     * @return false if no frame has been published yet
+     */
+    public synchronized boolean acquire() {
+        readLatest = latest;
+        readPrevious = previous != null ? previous : latest;
+        return readLatest != null;
+    }
+
+    /**
+     * Returns the older of the acquired frames. It is the same as the
+     * newer one if only one frame has been published.
+     *
+     * @return the older frame
+     */
+    public StateFrame getPrevious() {
+        return readPrevious;
+    }
+
+    /**
+     * Returns the newer of the acquired frames.
+     *
+     * @return the newer frame
+     */
+    public StateFrame getLatest() {
+        return readLatest;
+    }
+
+    /**
+     * Releases the acquired frames.
+     */
+    public synchronized void release() {
+        readPrevious = null;
+        readLatest = null;
+    }
+}
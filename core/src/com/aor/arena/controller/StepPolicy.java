@@ -0,0 +1,192 @@
+package com.aor.arena.controller;
+
+import com.aor.arena.model.ArenaConfig;
+
+import static com.aor.arena.controller.GameController.POSITION_ITERATIONS;
+import static com.aor.arena.controller.GameController.STEP;
+import static com.aor.arena.controller.GameController.VELOCITY_ITERATIONS;
+
+/**
+ * Keeps a game that runs in real time from falling further and further
+ * behind on a machine that can not simulate it in real time.
+ *
+ * While steps take longer than their target time, on average, the
+ * solver iterations of each step are lowered, velocity iterations first,
+ * down to the bounds in the arena configuration, and raised back once
+ * steps take less than half of it. While steps take longer than their
+ * share of real time, a frame only simulates as many steps as fit in
+ * its share, and the time it could not simulate is dropped and added up.
+ *
+ * On a machine that simulates the game comfortably, every step has the
+ * full iterations and every frame up to the configured substeps, so the
+ * game plays exactly as without a policy. The policy only changes
+ * anything for loops that consult it, not for games stepped one step
+ * at a time, such as the server or the headless runner. Iterations are
+ * not lowered while the input of a game is recorded, as a replay must
+ * simulate the same steps.
+ */
+public class StepPolicy {
+    /**
+     * The share of real time that simulating may take, leaving the rest
+     * for rendering.
+     */
+    private static final float MAX_LOAD = .5f;
+
+    /**
+     * How many steps the iterations are kept for before being changed
+     * again, so the average step time reflects the last change.
+     */
+    private static final int ADJUST_INTERVAL = 30;
+
+    /**
+     * Fewest velocity iterations of each step.
+     */
+    private final int minVelocityIterations;
+
+    /**
+     * Fewest position iterations of each step.
+     */
+    private final int minPositionIterations;
+
+    /**
+     * Most steps simulated back to back by a single frame.
+     */
+    private final int maxSubsteps;
+
+    /**
+     * The time a step should take, in seconds.
+     */
+    private final float targetStepTime;
+
+    /**
+     * Velocity iterations of the next step.
+     */
+    private int velocityIterations = VELOCITY_ITERATIONS;
+
+    /**
+     * Position iterations of the next step.
+     */
+    private int positionIterations = POSITION_ITERATIONS;
+
+    /**
+     * Can the iterations be lowered.
+     */
+    private boolean adaptingIterations = true;
+
+    /**
+     * Steps simulated since the iterations last changed.
+     */
+    private int stepsSinceChange;
+
+    /**
+     * Simulation time dropped so far, in seconds.
+     */
+    private float droppedTime;
+
+    /**
+     * Creates the policy of an arena. Steps should take their share of
+     * real time, or the step budget of the arena if it has one.
+     *
+     * @param config the parameters of the arena
+     */
+    public StepPolicy(ArenaConfig config) {
+        minVelocityIterations = config.getMinVelocityIterations();
+        minPositionIterations = config.getMinPositionIterations();
+        maxSubsteps = config.getMaxSubsteps();
+        targetStepTime = config.getStepBudget() > 0 ? config.getStepBudget() : STEP * MAX_LOAD;
+    }
+
+    /**
+     * Returns the velocity iterations of the next step.
+     *
+     * @return the number of iterations
+     */
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Returns the position iterations of the next step.
+     *
+     * @return the number of iterations
+     */
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * Allows or forbids lowering the iterations. Forbidding it restores
+     * the full iterations, so the steps that follow are the same as
+     * those of a game stepped one step at a time, such as a replay.
+     * Steps can still be dropped, as that does not change the steps
+     * that are simulated.
+     *
+     * @param adaptingIterations true to let the iterations be lowered
+     */
+    public void setAdaptingIterations(boolean adaptingIterations) {
+        this.adaptingIterations = adaptingIterations;
+        if (!adaptingIterations) {
+            velocityIterations = VELOCITY_ITERATIONS;
+            positionIterations = POSITION_ITERATIONS;
+        }
+    }
+
+    /**
+     * Returns the simulation time dropped so far because it could not be
+     * simulated in real time.
+     *
+     * @return the time in seconds
+     */
+    public float getDroppedTime() {
+        return droppedTime;
+    }
+
+    /**
+     * Returns how many steps a frame may simulate back to back.
+     *
+     * @param frameTime how long the frame lasted, in seconds
+     * @param averageStepTime the average time taken by the last steps, in seconds
+     * @return the number of steps, at least one
+     */
+    int getMaxSubsteps(float frameTime, float averageStepTime) {
+        if (averageStepTime <= STEP * MAX_LOAD)
+            return maxSubsteps;
+        return Math.max(1, Math.min(maxSubsteps, (int) (frameTime * MAX_LOAD / averageStepTime)));
+    }
+
+    /**
+     * Adapts the iterations of the next steps to the time the last ones
+     * took. Called after each step.
+     *
+     * @param averageStepTime the average time taken by the last steps, in seconds
+     */
+    void adapt(float averageStepTime) {
+        if (!adaptingIterations)
+            return;
+        if (stepsSinceChange < ADJUST_INTERVAL) {
+            stepsSinceChange++;
+            return;
+        }
+
+        if (averageStepTime > targetStepTime) {
+            if (velocityIterations > minVelocityIterations) velocityIterations--;
+            else if (positionIterations > minPositionIterations) positionIterations--;
+            else return;
+        } else if (averageStepTime < targetStepTime / 2) {
+            if (positionIterations < POSITION_ITERATIONS) positionIterations++;
+            else if (velocityIterations < VELOCITY_ITERATIONS) velocityIterations++;
+            else return;
+        } else return;
+
+        stepsSinceChange = 0;
+    }
+
+    /**
+     * Adds up simulation time that was not simulated.
+     *
+     * @param time the time in seconds
+     */
+    void drop(float time) {
+        droppedTime += time;
+    }
+}
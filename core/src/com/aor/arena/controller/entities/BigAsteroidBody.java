@@ -1,12 +1,19 @@
 package com.aor.arena.controller.entities;
 
 import com.aor.arena.model.entities.AsteroidModel;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 
 /**
  * A concrete representation of an EntityBody representing a big sized asteroid.
  */
 public class BigAsteroidBody extends EntityBody {
+    /**
+     * The fixtures of every big asteroid. The fixture needs
+     * to be convex so we need two of them.
+     */
+    private static final FixtureShape[] SHAPES = createShapes();
+
     /**
      * Constructs a medium sized asteroid body according to
      * a asteroid model.
@@ -15,18 +22,39 @@ public class BigAsteroidBody extends EntityBody {
      * @param model the model representing this asteroid.
      */
     public BigAsteroidBody(World world, AsteroidModel model) {
-        super(world, model);
+        this(world, model, BodyDef.BodyType.DynamicBody);
+    }
 
+    /**
+     * Constructs a big asteroid body of a certain Box2D type.
+     *
+     * @param world the physical world this asteroid belongs to.
+     * @param model the model representing this asteroid.
+     * @param bodyType the Box2D type of the body.
+     */
+    public BigAsteroidBody(World world, AsteroidModel model, BodyDef.BodyType bodyType) {
+        super(world, model, bodyType);
+
+        createFixtures(body, SHAPES);
+    }
+
+    /**
+     * Creates the fixtures of a big asteroid.
+     *
+     * @return the fixture shapes
+     */
+    private static FixtureShape[] createShapes() {
         float density = 1f, friction = 0.4f, restitution = 0.5f;
         int width = 75, height = 75;
 
-        // Fixture needs to be convex so we need two of them.
-        createFixture(body, new float[]{
-                0,33, 14,14, 46,7, 27,52, 7,52
-        }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
+        return new FixtureShape[] {
+                new FixtureShape(new float[]{
+                        0,33, 14,14, 46,7, 27,52, 7,52
+                }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY)),
 
-        createFixture(body, new float[]{
-                46,7, 27,52, 45,67, 74,55, 71,29
-        }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
+                new FixtureShape(new float[]{
+                        46,7, 27,52, 45,67, 74,55, 71,29
+                }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY))
+        };
     }
 }
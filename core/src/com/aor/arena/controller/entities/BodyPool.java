@@ -0,0 +1,101 @@
+package com.aor.arena.controller.entities;
+
+import com.aor.arena.model.entities.AsteroidModel;
+import com.aor.arena.model.entities.BulletModel;
+import com.aor.arena.model.entities.EntityModel;
+import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A pool of bodies, one per model type. Freed bodies are deactivated
+ * instead of destroyed and are reactivated when a body for a model
+ * of the same type is needed, avoiding the creation of Box2D bodies
+ * and fixtures. All bodies of a pool share the same Box2D type.
+ */
+public class BodyPool {
+    /**
+     * The world the bodies live in.
+     */
+    private final World world;
+
+    /**
+     * The Box2D type of the bodies.
+     */
+    private final BodyDef.BodyType bodyType;
+
+    /**
+     * The inactive bodies, indexed by model type ordinal.
+     */
+    private final Array<Array<EntityBody>> free = new Array<Array<EntityBody>>();
+
+    /**
+     * Creates a pool of dynamic bodies living in a world.
+     *
+     * @param world the world the bodies live in
+     */
+    public BodyPool(World world) {
+        this(world, BodyDef.BodyType.DynamicBody);
+    }
+
+    /**
+     * Creates a pool of bodies of a certain Box2D type living in a world.
+     *
+     * @param world the world the bodies live in
+     * @param bodyType the Box2D type of the bodies
+     */
+    public BodyPool(World world, BodyDef.BodyType bodyType) {
+        this.world = world;
+        this.bodyType = bodyType;
+        for (int i = 0; i < EntityModel.ModelType.values().length; i++)
+            free.add(new Array<EntityBody>(false, 16));
+    }
+
+    /**
+     * Returns a body representing a model. Reuses a freed
+     * body of the same type if there is one.
+     *
+     * @param model the model to be represented
+     * @return the body
+     */
+    public EntityBody obtain(EntityModel model) {
+        Array<EntityBody> bodies = free.get(model.getType().ordinal());
+        if (bodies.size == 0)
+            return create(model);
+
+        EntityBody body = bodies.pop();
+        body.activate(model);
+        return body;
+    }
+
+    /**
+     * Deactivates a body and keeps it to be reused.
+     *
+     * @param body the body to be freed
+     */
+    public void free(EntityBody body) {
+        body.deactivate();
+        free.get(body.getType().ordinal()).add(body);
+    }
+
+    /**
+     * Creates a new body of the correct class for a model.
+     *
+     * @param model the model to be represented
+     * @return the body
+     */
+    private EntityBody create(EntityModel model) {
+        switch (model.getType()) {
+            case BIGASTEROID:
+                return new BigAsteroidBody(world, (AsteroidModel) model, bodyType);
+            case MEDIUMASTEROID:
+                return new MediumAsteroidBody(world, (AsteroidModel) model, bodyType);
+            case BULLET:
+                return new BulletBody(world, (BulletModel) model, bodyType);
+            case SHIP:
+                return new ShipBody(world, (ShipModel) model, bodyType);
+        }
+        throw new IllegalArgumentException("Unknown model type: " + model.getType());
+    }
+}
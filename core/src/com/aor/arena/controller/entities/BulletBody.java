@@ -1,13 +1,18 @@
 package com.aor.arena.controller.entities;
 
-import com.aor.arena.model.entities.AsteroidModel;
 import com.aor.arena.model.entities.BulletModel;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 
 /**
  * A concrete representation of an EntityBody representing a bullet.
  */
 public class BulletBody extends EntityBody {
+    /**
+     * The fixtures of every bullet.
+     */
+    private static final FixtureShape[] SHAPES = createShapes();
+
     /**
      * Constructs a bullet body according to
      * a bullet model.
@@ -16,13 +21,35 @@ public class BulletBody extends EntityBody {
      * @param model the model representing this bullet.
      */
     public BulletBody(World world, BulletModel model) {
-        super(world, model);
+        this(world, model, BodyDef.BodyType.DynamicBody);
+    }
+
+    /**
+     * Constructs a bullet body of a certain Box2D type.
+     *
+     * @param world the physical world this bullet belongs to.
+     * @param model the model representing this bullet.
+     * @param bodyType the Box2D type of the body.
+     */
+    public BulletBody(World world, BulletModel model, BodyDef.BodyType bodyType) {
+        super(world, model, bodyType);
+
+        createFixtures(body, SHAPES);
+    }
 
+    /**
+     * Creates the fixtures of a bullet.
+     *
+     * @return the fixture shapes
+     */
+    private static FixtureShape[] createShapes() {
         float density = 1f, friction = 0.4f, restitution = 0.5f;
         int width = 12, height = 12;
 
-        createFixture(body, new float[]{
-                5,5, 5,10, 10,10, 10,5,
-        }, width, height, density, friction, restitution, BULLET_BODY, (short) (ASTEROID_BODY | SHIP_BODY));
+        return new FixtureShape[] {
+                new FixtureShape(new float[]{
+                        5,5, 5,10, 10,10, 10,5,
+                }, width, height, density, friction, restitution, BULLET_BODY, (short) (ASTEROID_BODY | SHIP_BODY))
+        };
     }
 }
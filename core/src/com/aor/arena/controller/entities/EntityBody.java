@@ -1,14 +1,11 @@
 package com.aor.arena.controller.entities;
 
 import com.aor.arena.model.entities.EntityModel;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 
-import static com.aor.arena.view.GameView.PIXEL_TO_METER;
-
 /**
  * Wrapper class that represents an abstract physical
  * body supported by a Box2D body.
@@ -23,61 +20,57 @@ public abstract class EntityBody {
      */
     final Body body;
 
+    /**
+     * The model represented by this body.
+     */
+    private EntityModel model;
+
+    /**
+     * The type of the models this body can represent.
+     */
+    private final EntityModel.ModelType type;
+
     /**
      * Constructs a body representing a model in a certain world.
      *
      * @param world The world this body lives on.
      * @param model The model representing the body.
+     * @param bodyType The Box2D type of the body.
      */
-    EntityBody(World world, EntityModel model) {
+    EntityBody(World world, EntityModel model, BodyDef.BodyType bodyType) {
         BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.DynamicBody;
+        bodyDef.type = bodyType;
         bodyDef.position.set(model.getX(), model.getY());
         bodyDef.angle = model.getRotation();
 
         body = world.createBody(bodyDef);
         body.setUserData(model);
+
+        this.model = model;
+        this.type = model.getType();
     }
 
     /**
-     * Helper method to create a polygon fixture represented by a set of vertexes.
-     * @param body The body the fixture is to be attached to.
-     * @param vertexes The vertexes defining the fixture in pixels so it is
-     *                 easier to get them from a bitmap image.
-     * @param width The width of the bitmap the vertexes where extracted from.
-     * @param height The height of the bitmap the vertexes where extracted from.
-     * @param density The density of the fixture. How heavy it is in relation to its area.
-     * @param friction The friction of the fixture. How slippery it is.
-     * @param restitution The restitution of the fixture. How much it bounces.
-     * @param category
-     * @param mask
+     * Helper method to create the fixtures of a body from shapes
+     * shared by all bodies of the same type.
+     *
+     * @param body The body the fixtures are to be attached to.
+     * @param shapes The shapes of the fixtures.
      */
-    final void createFixture(Body body, float[] vertexes, int width, int height, float density, float friction, float restitution, short category, short mask) {
-        // Transform pixels into meters, center and invert the y-coordinate
-        for (int i = 0; i < vertexes.length; i++) {
-            if (i % 2 == 0) vertexes[i] -= width / 2;   // center the vertex x-coordinate
-            if (i % 2 != 0) vertexes[i] -= height / 2;  // center the vertex y-coordinate
-
-            if (i % 2 != 0) vertexes[i] *= -1;          // invert the y-coordinate
-
-            vertexes[i] *= PIXEL_TO_METER;              // scale from pixel to meter
-        }
-
-        PolygonShape polygon = new PolygonShape();
-        polygon.set(vertexes);
-
-        FixtureDef fixtureDef = new FixtureDef();
-        fixtureDef.shape = polygon;
-
-        fixtureDef.density = density;
-        fixtureDef.friction = friction;
-        fixtureDef.restitution = restitution;
-        fixtureDef.filter.categoryBits = category;
-        fixtureDef.filter.maskBits = mask;
-
-        body.createFixture(fixtureDef);
+    final void createFixtures(Body body, FixtureShape[] shapes) {
+        for (FixtureShape shape : shapes)
+            body.createFixture(shape.getFixtureDef());
+    }
 
-        polygon.dispose();
+    /**
+     * Wraps the getPosition method from the Box2D body class. The
+     * returned vector is reused by Box2D, so it should be read before
+     * the body is queried again.
+     *
+     * @return the position of this body.
+     */
+    public Vector2 getPosition() {
+        return body.getPosition();
     }
 
     /**
@@ -127,6 +120,54 @@ public abstract class EntityBody {
         body.setLinearVelocity((float)(velocity * -Math.sin(getAngle())), (float) (velocity * Math.cos(getAngle())));
     }
 
+    /**
+     * Wraps the setLinearVelocity method from the Box2D body class.
+     *
+     * @param x the x-component of the new linear velocity
+     * @param y the y-component of the new linear velocity
+     */
+    public void setLinearVelocity(float x, float y) {
+        body.setLinearVelocity(x, y);
+    }
+
+    /**
+     * Wraps the getLinearVelocity method from the Box2D body class. The
+     * returned vector is reused by Box2D, so it should be read before
+     * the body is queried again.
+     *
+     * @return the linear velocity of this body
+     */
+    public Vector2 getLinearVelocity() {
+        return body.getLinearVelocity();
+    }
+
+    /**
+     * Wraps the getAngularVelocity method from the Box2D body class.
+     *
+     * @return the angular velocity of this body
+     */
+    public float getAngularVelocity() {
+        return body.getAngularVelocity();
+    }
+
+    /**
+     * Wraps the isAwake method from the Box2D body class.
+     *
+     * @return true if this body is awake
+     */
+    public boolean isAwake() {
+        return body.isAwake();
+    }
+
+    /**
+     * Wraps the setAwake method from the Box2D body class.
+     *
+     * @param awake true to wake this body up, false to put it to sleep
+     */
+    public void setAwake(boolean awake) {
+        body.setAwake(awake);
+    }
+
     /**
      * Wraps the setAngularVelocity method from the Box2D body class.
      *
@@ -155,4 +196,48 @@ public abstract class EntityBody {
     public Object getUserData() {
         return body.getUserData();
     }
+
+    /**
+     * Returns the model represented by this body.
+     *
+     * @return the model
+     */
+    public EntityModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the type of the models this body can represent.
+     *
+     * @return the model type
+     */
+    public EntityModel.ModelType getType() {
+        return type;
+    }
+
+    /**
+     * Reuses this body to represent another model. The Box2D body
+     * and its fixtures are kept, only its state is reset.
+     *
+     * @param model the model to be represented, of the same type as the previous one
+     */
+    public void activate(EntityModel model) {
+        this.model = model;
+        body.setUserData(model);
+        body.setTransform(model.getX(), model.getY(), model.getRotation());
+        body.setLinearVelocity(0, 0);
+        body.setAngularVelocity(0);
+        body.setActive(true);
+        body.setAwake(true);
+    }
+
+    /**
+     * Removes this body from the simulation without destroying the
+     * Box2D body, so it can be reused later by calling activate.
+     */
+    public void deactivate() {
+        body.setActive(false);
+        body.setUserData(null);
+        model = null;
+    }
 }
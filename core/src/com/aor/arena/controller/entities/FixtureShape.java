@@ -0,0 +1,106 @@
+package com.aor.arena.controller.entities;
+
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+
+import static com.aor.arena.view.GameView.PIXEL_TO_METER;
+
+/**
+ * A polygon fixture shared by all bodies of the same type.
+ *
+ * The vertexes are converted from pixels into meters and validated
+ * once, when the shape is created, and the native Box2D shape is
+ * reused by every body created afterwards. Box2D copies the shape
+ * into each new fixture, so sharing it between bodies, and between
+ * worlds, is safe.
+ */
+final class FixtureShape {
+    /**
+     * The maximum number of vertexes of a Box2D polygon.
+     */
+    private static final int MAX_VERTEXES = 8;
+
+    /**
+     * The fixture definition, pointing to the shared native shape.
+     */
+    private final FixtureDef fixtureDef = new FixtureDef();
+
+    /**
+     * Creates a polygon fixture represented by a set of vertexes.
+     *
+     * @param vertexes The vertexes defining the fixture in pixels so it is
+     *                 easier to get them from a bitmap image.
+     * @param width The width of the bitmap the vertexes where extracted from.
+     * @param height The height of the bitmap the vertexes where extracted from.
+     * @param density The density of the fixture. How heavy it is in relation to its area.
+     * @param friction The friction of the fixture. How slippery it is.
+     * @param restitution The restitution of the fixture. How much it bounces.
+     * @param category The collision category of the fixture.
+     * @param mask The categories the fixture collides with.
+     */
+    FixtureShape(float[] vertexes, int width, int height, float density, float friction, float restitution, short category, short mask) {
+        float[] meters = toMeters(vertexes, width, height);
+        validate(meters);
+
+        PolygonShape polygon = new PolygonShape();
+        polygon.set(meters);
+
+        fixtureDef.shape = polygon;
+        fixtureDef.density = density;
+        fixtureDef.friction = friction;
+        fixtureDef.restitution = restitution;
+        fixtureDef.filter.categoryBits = category;
+        fixtureDef.filter.maskBits = mask;
+    }
+
+    /**
+     * Returns the fixture definition of this shape. Must not be modified.
+     *
+     * @return the fixture definition
+     */
+    FixtureDef getFixtureDef() {
+        return fixtureDef;
+    }
+
+    /**
+     * Transforms pixels into meters, centering and inverting the y-coordinate.
+     *
+     * @param vertexes the vertexes in pixels
+     * @param width The width of the bitmap the vertexes where extracted from.
+     * @param height The height of the bitmap the vertexes where extracted from.
+     * @return a new array with the vertexes in meters
+     */
+    private static float[] toMeters(float[] vertexes, int width, int height) {
+        float[] meters = new float[vertexes.length];
+        for (int i = 0; i < vertexes.length; i++) {
+            if (i % 2 == 0) meters[i] = vertexes[i] - width / 2;      // center the vertex x-coordinate
+            if (i % 2 != 0) meters[i] = -(vertexes[i] - height / 2);  // center and invert the y-coordinate
+
+            meters[i] *= PIXEL_TO_METER;                              // scale from pixel to meter
+        }
+        return meters;
+    }
+
+    /**
+     * Verifies that the vertexes describe a convex polygon Box2D can use.
+     *
+     * @param vertexes the vertexes in meters
+     * @throws IllegalArgumentException if the polygon is not valid
+     */
+    private static void validate(float[] vertexes) {
+        int count = vertexes.length / 2;
+        if (vertexes.length % 2 != 0 || count < 3 || count > MAX_VERTEXES)
+            throw new IllegalArgumentException("A fixture needs between 3 and " + MAX_VERTEXES + " vertexes");
+
+        int sign = 0;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count, k = (i + 2) % count;
+            float cross = (vertexes[2 * j] - vertexes[2 * i]) * (vertexes[2 * k + 1] - vertexes[2 * j + 1])
+                        - (vertexes[2 * j + 1] - vertexes[2 * i + 1]) * (vertexes[2 * k] - vertexes[2 * j]);
+            if (cross == 0) continue;
+            if (sign == 0) sign = cross > 0 ? 1 : -1;
+            else if ((cross > 0 ? 1 : -1) != sign)
+                throw new IllegalArgumentException("Fixtures need to be convex");
+        }
+    }
+}
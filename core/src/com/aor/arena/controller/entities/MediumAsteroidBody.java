@@ -1,12 +1,18 @@
 package com.aor.arena.controller.entities;
 
 import com.aor.arena.model.entities.AsteroidModel;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 
 /**
  * A concrete representation of an EntityBody representing a medium sized asteroid.
  */
 public class MediumAsteroidBody extends EntityBody {
+    /**
+     * The fixtures of every medium sized asteroid.
+     */
+    private static final FixtureShape[] SHAPES = createShapes();
+
     /**
      * Constructs a medium sized asteroid body according to
      * a asteroid model.
@@ -15,13 +21,35 @@ public class MediumAsteroidBody extends EntityBody {
      * @param model the model representing this asteroid.
      */
     public MediumAsteroidBody(World world, AsteroidModel model) {
-        super(world, model);
+        this(world, model, BodyDef.BodyType.DynamicBody);
+    }
 
+    /**
+     * Constructs a medium sized asteroid body of a certain Box2D type.
+     *
+     * @param world the physical world this asteroid belongs to.
+     * @param model the model representing this asteroid.
+     * @param bodyType the Box2D type of the body.
+     */
+    public MediumAsteroidBody(World world, AsteroidModel model, BodyDef.BodyType bodyType) {
+        super(world, model, bodyType);
+
+        createFixtures(body, SHAPES);
+    }
+
+    /**
+     * Creates the fixtures of a medium sized asteroid.
+     *
+     * @return the fixture shapes
+     */
+    private static FixtureShape[] createShapes() {
         float density = 1f, friction = 0.4f, restitution = 0.5f;
         int width = 35, height = 35;
 
-        createFixture(body, new float[]{
-                0,23, 3,2, 27,2, 34,18, 17,33
-        }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
+        return new FixtureShape[] {
+                new FixtureShape(new float[]{
+                        0,23, 3,2, 27,2, 34,18, 17,33
+                }, width, height, density, friction, restitution, ASTEROID_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY))
+        };
     }
 }
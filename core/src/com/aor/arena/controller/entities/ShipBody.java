@@ -1,6 +1,7 @@
 package com.aor.arena.controller.entities;
 
 import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 
 /**
@@ -8,6 +9,11 @@ import com.badlogic.gdx.physics.box2d.World;
  * representing the player space ship.
  */
 public class ShipBody extends EntityBody {
+    /**
+     * The fixtures of every space ship.
+     */
+    private static final FixtureShape[] SHAPES = createShapes();
+
     /**
      * Constructs a space ship body according to
      * a space ship model.
@@ -16,35 +22,56 @@ public class ShipBody extends EntityBody {
      * @param model the model representing this space ship.
      */
     public ShipBody(World world, ShipModel model) {
-        super(world, model);
+        this(world, model, BodyDef.BodyType.DynamicBody);
+    }
+
+    /**
+     * Constructs a space ship body of a certain Box2D type.
+     *
+     * @param world the physical world this space ship belongs to.
+     * @param model the model representing this space ship.
+     * @param bodyType the Box2D type of the body.
+     */
+    public ShipBody(World world, ShipModel model, BodyDef.BodyType bodyType) {
+        super(world, model, bodyType);
 
+        createFixtures(body, SHAPES);
+    }
+
+    /**
+     * Creates the fixtures of a space ship.
+     *
+     * @return the fixture shapes
+     */
+    private static FixtureShape[] createShapes() {
         float density = 0.5f, friction = 0.4f, restitution = 0.5f;
         int width = 75, height = 75;
 
-        // Left winglet
-        createFixture(body, new float[]{
-                12,28, 15,28, 19,32, 19,42, 13,43
-        }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
-
-        // Right winglet
-        createFixture(body, new float[]{
-                61,28, 58,28, 55,32, 55,42, 60,43
-        }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
-
-        // Left wing
-        createFixture(body, new float[]{
-                19,32, 19,42, 31,46, 31,25
-        }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
-
-        // Right wing
-        createFixture(body, new float[]{
-                55,32, 55,42, 43,46, 43,25
-        }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
-
-        // Body
-        createFixture(body, new float[]{
-                32,12, 31,46, 34,51, 40,51, 43,46, 41,12
-        }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY));
+        return new FixtureShape[] {
+                // Left winglet
+                new FixtureShape(new float[]{
+                        12,28, 15,28, 19,32, 19,42, 13,43
+                }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY)),
+
+                // Right winglet
+                new FixtureShape(new float[]{
+                        61,28, 58,28, 55,32, 55,42, 60,43
+                }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY)),
+
+                // Left wing
+                new FixtureShape(new float[]{
+                        19,32, 19,42, 31,46, 31,25
+                }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY)),
+
+                // Right wing
+                new FixtureShape(new float[]{
+                        55,32, 55,42, 43,46, 43,25
+                }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY)),
+
+                // Body
+                new FixtureShape(new float[]{
+                        32,12, 31,46, 34,51, 40,51, 43,46, 41,12
+                }, width, height, density, friction, restitution, SHIP_BODY, (short) (ASTEROID_BODY | SHIP_BODY | BULLET_BODY))
+        };
     }
 }
-
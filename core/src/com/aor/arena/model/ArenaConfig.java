@@ -0,0 +1,400 @@
+package com.aor.arena.model;
+
+import com.aor.arena.controller.GameController;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * The parameters of an arena: its size, the asteroids it starts with,
+ * how they break, how ships shoot, and the budgets and quality bounds
+ * that keep a large arena from taking more than the machine can simulate.
+ *
+ * A configuration is read once, when a game is created, from a JSON
+ * object whose fields are named like the ones below, for example
+ * {width: 1000, height: 1000, asteroidCount: 50000}. Fields that are
+ * left out keep their defaults, which are those of the original arena.
+ *
+ * Two games only go through the same states, given the same seed and
+ * inputs, if they were created with the same configuration and have
+ * no step budget.
+ */
+public class ArenaConfig {
+    /**
+     * The arena width in meters.
+     */
+    private float width = GameController.ARENA_WIDTH;
+
+    /**
+     * The arena height in meters.
+     */
+    private float height = GameController.ARENA_HEIGHT;
+
+    /**
+     * Number of asteroids in the beginning of the game.
+     */
+    private int asteroidCount = 100;
+
+    /**
+     * The fraction of the initial asteroids that are big.
+     */
+    private float bigAsteroidRatio = .5f;
+
+    /**
+     * The least distance between the initial asteroids, in meters, or
+     * zero to place them anywhere. Asteroids placed over each other push
+     * each other apart and, in a dense arena, keep each other awake.
+     */
+    private float asteroidSpacing = 0;
+
+    /**
+     * The number of fragments a big asteroid breaks into.
+     */
+    private int fragmentCount = 5;
+
+    /**
+     * How long bullets fly before vanishing, in seconds.
+     */
+    private float bulletTimeToLive = .5f;
+
+    /**
+     * Minimum time between consecutive shots of a ship, in seconds.
+     */
+    private float timeBetweenShots = .1f;
+
+    /**
+     * The most entities, with or without a physics body, alive at the
+     * same time. Bullets are not fired and asteroids do not break into
+     * fragments past it. The default is the most the network protocol
+     * can address.
+     */
+    private int maxEntities = 0xFFFF;
+
+    /**
+     * The time a simulation step should take, in seconds, or zero for
+     * no budget. While steps take longer, on average, asteroids break
+     * into fewer fragments.
+     */
+    private float stepBudget = 0;
+
+    /**
+     * The fewest velocity iterations a step may be simulated with when
+     * steps run late in a game played in real time.
+     */
+    private int minVelocityIterations = 3;
+
+    /**
+     * The fewest position iterations a step may be simulated with when
+     * steps run late in a game played in real time.
+     */
+    private int minPositionIterations = 1;
+
+    /**
+     * The most steps a frame of a game played in real time simulates
+     * back to back. Time past them is dropped.
+     */
+    private int maxSubsteps = 15;
+
+    /**
+     * Reads a configuration from a JSON object.
+     *
+     * @param json the JSON object
+     * @return the configuration
+     * @throws IllegalArgumentException if the object is not a valid configuration
+     */
+    public static ArenaConfig fromJson(String json) {
+        ArenaConfig config;
+        try {
+            config = new Json().fromJson(ArenaConfig.class, json);
+        } catch (SerializationException e) {
+            throw new IllegalArgumentException("Invalid arena configuration", e);
+        }
+        if (config == null)
+            throw new IllegalArgumentException("Empty arena configuration");
+        config.validate();
+        return config;
+    }
+
+    /**
+     * Verifies that every parameter is within its bounds.
+     *
+     * @throws IllegalArgumentException if a parameter is out of bounds
+     */
+    public void validate() {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("The arena must have a positive size");
+        if (asteroidCount < 0 || fragmentCount < 0)
+            throw new IllegalArgumentException("Asteroid and fragment counts can not be negative");
+        if (bigAsteroidRatio < 0 || bigAsteroidRatio > 1)
+            throw new IllegalArgumentException("The ratio of big asteroids must be between 0 and 1");
+        if (asteroidSpacing < 0)
+            throw new IllegalArgumentException("The asteroid spacing can not be negative");
+        if (bulletTimeToLive <= 0)
+            throw new IllegalArgumentException("The bullet time to live must be positive");
+        if (timeBetweenShots < 0 || stepBudget < 0)
+            throw new IllegalArgumentException("Times can not be negative");
+        if (asteroidCount >= maxEntities)
+            throw new IllegalArgumentException("The initial asteroids and the ship do not fit in " + maxEntities + " entities");
+        if (minVelocityIterations < 1 || minVelocityIterations > GameController.VELOCITY_ITERATIONS)
+            throw new IllegalArgumentException("The fewest velocity iterations must be between 1 and " + GameController.VELOCITY_ITERATIONS);
+        if (minPositionIterations < 1 || minPositionIterations > GameController.POSITION_ITERATIONS)
+            throw new IllegalArgumentException("The fewest position iterations must be between 1 and " + GameController.POSITION_ITERATIONS);
+        if (maxSubsteps < 1)
+            throw new IllegalArgumentException("A frame must simulate at least one step");
+    }
+
+    /**
+     * Returns a number identifying the parameters that change the steps
+     * of a game, the same on every machine. The bounds of the step policy
+     * are left out, as a recorded game always steps with the full
+     * iterations.
+     *
+     * @return the fingerprint
+     */
+    public int fingerprint() {
+        int result = Float.floatToIntBits(width);
+        result = 31 * result + Float.floatToIntBits(height);
+        result = 31 * result + asteroidCount;
+        result = 31 * result + Float.floatToIntBits(bigAsteroidRatio);
+        result = 31 * result + Float.floatToIntBits(asteroidSpacing);
+        result = 31 * result + fragmentCount;
+        result = 31 * result + Float.floatToIntBits(bulletTimeToLive);
+        result = 31 * result + Float.floatToIntBits(timeBetweenShots);
+        result = 31 * result + maxEntities;
+        result = 31 * result + Float.floatToIntBits(stepBudget);
+        return result;
+    }
+
+    /**
+     * Returns the arena width.
+     *
+     * @return the width in meters
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Changes the arena width.
+     *
+     * @param width the width in meters
+     */
+    public void setWidth(float width) {
+        this.width = width;
+    }
+
+    /**
+     * Returns the arena height.
+     *
+     * @return the height in meters
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Changes the arena height.
+     *
+     * @param height the height in meters
+     */
+    public void setHeight(float height) {
+        this.height = height;
+    }
+
+    /**
+     * Returns the number of asteroids in the beginning of the game.
+     *
+     * @return the number of asteroids
+     */
+    public int getAsteroidCount() {
+        return asteroidCount;
+    }
+
+    /**
+     * Changes the number of asteroids in the beginning of the game.
+     *
+     * @param asteroidCount the number of asteroids
+     */
+    public void setAsteroidCount(int asteroidCount) {
+        this.asteroidCount = asteroidCount;
+    }
+
+    /**
+     * Returns the fraction of the initial asteroids that are big.
+     *
+     * @return the fraction, between 0 and 1
+     */
+    public float getBigAsteroidRatio() {
+        return bigAsteroidRatio;
+    }
+
+    /**
+     * Changes the fraction of the initial asteroids that are big.
+     *
+     * @param bigAsteroidRatio the fraction, between 0 and 1
+     */
+    public void setBigAsteroidRatio(float bigAsteroidRatio) {
+        this.bigAsteroidRatio = bigAsteroidRatio;
+    }
+
+    /**
+     * Returns the least distance between the initial asteroids.
+     *
+     * @return the distance in meters, or zero to place them anywhere
+     */
+    public float getAsteroidSpacing() {
+        return asteroidSpacing;
+    }
+
+    /**
+     * Changes the least distance between the initial asteroids.
+     *
+     * @param asteroidSpacing the distance in meters, or zero to place them anywhere
+     */
+    public void setAsteroidSpacing(float asteroidSpacing) {
+        this.asteroidSpacing = asteroidSpacing;
+    }
+
+    /**
+     * Returns the number of fragments a big asteroid breaks into.
+     *
+     * @return the number of fragments
+     */
+    public int getFragmentCount() {
+        return fragmentCount;
+    }
+
+    /**
+     * Changes the number of fragments a big asteroid breaks into.
+     *
+     * @param fragmentCount the number of fragments
+     */
+    public void setFragmentCount(int fragmentCount) {
+        this.fragmentCount = fragmentCount;
+    }
+
+    /**
+     * Returns how long bullets fly before vanishing.
+     *
+     * @return the time in seconds
+     */
+    public float getBulletTimeToLive() {
+        return bulletTimeToLive;
+    }
+
+    /**
+     * Changes how long bullets fly before vanishing.
+     *
+     * @param bulletTimeToLive the time in seconds
+     */
+    public void setBulletTimeToLive(float bulletTimeToLive) {
+        this.bulletTimeToLive = bulletTimeToLive;
+    }
+
+    /**
+     * Returns the minimum time between consecutive shots of a ship.
+     *
+     * @return the time in seconds
+     */
+    public float getTimeBetweenShots() {
+        return timeBetweenShots;
+    }
+
+    /**
+     * Changes the minimum time between consecutive shots of a ship.
+     *
+     * @param timeBetweenShots the time in seconds
+     */
+    public void setTimeBetweenShots(float timeBetweenShots) {
+        this.timeBetweenShots = timeBetweenShots;
+    }
+
+    /**
+     * Returns the most entities alive at the same time.
+     *
+     * @return the number of entities
+     */
+    public int getMaxEntities() {
+        return maxEntities;
+    }
+
+    /**
+     * Changes the most entities alive at the same time.
+     *
+     * @param maxEntities the number of entities
+     */
+    public void setMaxEntities(int maxEntities) {
+        this.maxEntities = maxEntities;
+    }
+
+    /**
+     * Returns the time a simulation step should take.
+     *
+     * @return the time in seconds, or zero for no budget
+     */
+    public float getStepBudget() {
+        return stepBudget;
+    }
+
+    /**
+     * Changes the time a simulation step should take.
+     *
+     * @param stepBudget the time in seconds, or zero for no budget
+     */
+    public void setStepBudget(float stepBudget) {
+        this.stepBudget = stepBudget;
+    }
+
+    /**
+     * Returns the fewest velocity iterations a step may be simulated with.
+     *
+     * @return the number of iterations
+     */
+    public int getMinVelocityIterations() {
+        return minVelocityIterations;
+    }
+
+    /**
+     * Changes the fewest velocity iterations a step may be simulated with.
+     *
+     * @param minVelocityIterations the number of iterations
+     */
+    public void setMinVelocityIterations(int minVelocityIterations) {
+        this.minVelocityIterations = minVelocityIterations;
+    }
+
+    /**
+     * Returns the fewest position iterations a step may be simulated with.
+     *
+     * @return the number of iterations
+     */
+    public int getMinPositionIterations() {
+        return minPositionIterations;
+    }
+
+    /**
+     * Changes the fewest position iterations a step may be simulated with.
+     *
+     * @param minPositionIterations the number of iterations
+     */
+    public void setMinPositionIterations(int minPositionIterations) {
+        this.minPositionIterations = minPositionIterations;
+    }
+
+    /**
+     * Returns the most steps a frame simulates back to back.
+     *
+     * @return the number of steps
+     */
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * Changes the most steps a frame simulates back to back.
+     *
+     * @param maxSubsteps the number of steps
+     */
+    public void setMaxSubsteps(int maxSubsteps) {
+        this.maxSubsteps = maxSubsteps;
+    }
+}
@@ -0,0 +1,37 @@
+package com.aor.arena.model;
+
+/**
+ * Coordinates in an arena that wraps around its edges, so each axis
+ * is a circle: going past one edge comes back in from the other.
+ */
+public final class ArenaWrap {
+    private ArenaWrap() {
+    }
+
+    /**
+     * Returns the shortest offset between two coordinates in a wrapped axis.
+     *
+     * @param offset the offset between the coordinates
+     * @param size the size of the axis
+     * @return the shortest equivalent offset
+     */
+    public static float closest(float offset, float size) {
+        if (offset > size / 2) return offset - size;
+        if (offset < -size / 2) return offset + size;
+        return offset;
+    }
+
+    /**
+     * Wraps a coordinate into an axis. The coordinate must be less than
+     * one size outside of it.
+     *
+     * @param value the coordinate
+     * @param size the size of the axis
+     * @return the wrapped coordinate
+     */
+    public static float wrap(float value, float size) {
+        if (value < 0) return value + size;
+        if (value > size) return value - size;
+        return value;
+    }
+}
@@ -0,0 +1,74 @@
+package com.aor.arena.model;
+
+import com.aor.arena.model.entities.EntityModel.ModelType;
+
+/**
+ * Read access to the transform of every entity in a game, indexed like
+ * the entity store. Implemented by the store itself and by the copies
+ * of it published to the rendering thread.
+ */
+public interface EntityState {
+    /**
+     * Returns the number of entities.
+     *
+     * @return the number of entities
+     */
+    int size();
+
+    /**
+     * Returns the index of the entity with a certain handle.
+     *
+     * @param handle the handle of the entity
+     * @return the index of the entity, or -1 if there is no such entity
+     */
+    int indexOf(int handle);
+
+    /**
+     * Returns the handle of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the handle of the entity
+     */
+    int getHandle(int index);
+
+    /**
+     * Returns the generation of the handle of a living entity, which
+     * tells it apart from entities that used the handle before.
+     *
+     * @param handle the handle of the entity
+     * @return the generation of the handle
+     */
+    int getGeneration(int handle);
+
+    /**
+     * Returns the type of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the type of the entity
+     */
+    ModelType getType(int index);
+
+    /**
+     * Returns the x-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the x-coordinate in meters
+     */
+    float getX(int index);
+
+    /**
+     * Returns the y-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the y-coordinate in meters
+     */
+    float getY(int index);
+
+    /**
+     * Returns the rotation of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the rotation in radians
+     */
+    float getRotation(int index);
+}
@@ -0,0 +1,366 @@
+package com.aor.arena.model;
+
+import com.aor.arena.model.entities.EntityModel;
+import com.aor.arena.model.entities.EntityModel.ModelType;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * A structure of arrays holding the state of every entity in a game.
+ *
+ * Entities are packed at the start of primitive arrays, so sweeping
+ * through all of them reads memory sequentially. Each entity is also
+ * identified by a handle that does not change while the entity lives,
+ * even if removing other entities moves it to another index.
+ */
+public class EntityStore implements EntityState {
+    /**
+     * Flag marking entities that should be removed on the next step.
+     */
+    public static final byte FLAG_REMOVAL = 0x01;
+
+    /**
+     * The model types, indexed by ordinal.
+     */
+    private static final ModelType[] TYPES = ModelType.values();
+
+    /**
+     * The x-coordinates in meters.
+     */
+    private float[] x;
+
+    /**
+     * The y-coordinates in meters.
+     */
+    private float[] y;
+
+    /**
+     * The rotations in radians.
+     */
+    private float[] rotation;
+
+    /**
+     * The time to live in seconds. Only used by bullets.
+     */
+    private float[] timeToLive;
+
+    /**
+     * The ordinal of the type of each entity.
+     */
+    private byte[] type;
+
+    /**
+     * The flags of each entity.
+     */
+    private byte[] flags;
+
+    /**
+     * The model of each entity.
+     */
+    private EntityModel[] models;
+
+    /**
+     * The handle of the entity at each index.
+     */
+    private int[] handles;
+
+    /**
+     * The index of the entity with each handle, or -1 for free handles.
+     */
+    private int[] indexes;
+
+    /**
+     * How many times each handle has been released, so that an entity
+     * reusing a handle can be told apart from the one before it.
+     */
+    private int[] generations;
+
+    /**
+     * Handles that have been released and can be reused.
+     */
+    private final IntArray freeHandles = new IntArray();
+
+    /**
+     * Number of entities in the store.
+     */
+    private int size;
+
+    /**
+     * Number of handles ever given out.
+     */
+    private int handleCount;
+
+    /**
+     * Creates a store.
+     *
+     * @param capacity initial number of entities the store can hold without growing
+     */
+    public EntityStore(int capacity) {
+        capacity = Math.max(capacity, 16);
+        x = new float[capacity];
+        y = new float[capacity];
+        rotation = new float[capacity];
+        timeToLive = new float[capacity];
+        type = new byte[capacity];
+        flags = new byte[capacity];
+        models = new EntityModel[capacity];
+        handles = new int[capacity];
+        indexes = new int[capacity];
+        Arrays.fill(indexes, -1);
+        generations = new int[capacity];
+    }
+
+    /**
+     * Adds an entity to the store.
+     *
+     * @param model the model of the entity
+     * @return the handle of the new entity
+     */
+    public int add(EntityModel model) {
+        if (size == x.length)
+            grow(size * 2);
+
+        int handle = freeHandles.size > 0 ? freeHandles.pop() : handleCount++;
+        if (handle >= indexes.length) {
+            int old = indexes.length;
+            indexes = Arrays.copyOf(indexes, handle * 2);
+            Arrays.fill(indexes, old, indexes.length, -1);
+            generations = Arrays.copyOf(generations, handle * 2);
+        }
+
+        int index = size++;
+        handles[index] = handle;
+        indexes[handle] = index;
+        models[index] = model;
+        type[index] = (byte) model.getType().ordinal();
+        flags[index] = 0;
+        timeToLive[index] = 0;
+
+        return handle;
+    }
+
+    /**
+     * Removes an entity from the store. The last entity is moved
+     * into its index and the handle becomes free to be reused.
+     *
+     * @param handle the handle of the entity
+     */
+    public void remove(int handle) {
+        int index = indexes[handle];
+        int last = --size;
+
+        if (index != last) {
+            x[index] = x[last];
+            y[index] = y[last];
+            rotation[index] = rotation[last];
+            timeToLive[index] = timeToLive[last];
+            type[index] = type[last];
+            flags[index] = flags[last];
+            models[index] = models[last];
+            handles[index] = handles[last];
+            indexes[handles[index]] = index;
+        }
+
+        models[last] = null;
+        indexes[handle] = -1;
+        generations[handle]++;
+        freeHandles.add(handle);
+    }
+
+    /**
+     * Swaps the indexes of two entities. Their handles do not change.
+     *
+     * @param first the index of the first entity
+     * @param second the index of the second entity
+     */
+    public void swap(int first, int second) {
+        float f;
+        f = x[first]; x[first] = x[second]; x[second] = f;
+        f = y[first]; y[first] = y[second]; y[second] = f;
+        f = rotation[first]; rotation[first] = rotation[second]; rotation[second] = f;
+        f = timeToLive[first]; timeToLive[first] = timeToLive[second]; timeToLive[second] = f;
+
+        byte b;
+        b = type[first]; type[first] = type[second]; type[second] = b;
+        b = flags[first]; flags[first] = flags[second]; flags[second] = b;
+
+        EntityModel model = models[first]; models[first] = models[second]; models[second] = model;
+
+        int handle = handles[first]; handles[first] = handles[second]; handles[second] = handle;
+        indexes[handles[first]] = first;
+        indexes[handles[second]] = second;
+    }
+
+    /**
+     * Grows the arrays holding the entities.
+     *
+     * @param capacity the new capacity
+     */
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        timeToLive = Arrays.copyOf(timeToLive, capacity);
+        type = Arrays.copyOf(type, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        models = Arrays.copyOf(models, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+
+    /**
+     * Returns the number of entities in the store.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the current index of an entity.
+     *
+     * @param handle the handle of the entity
+     * @return the index of the entity
+     */
+    public int indexOf(int handle) {
+        return indexes[handle];
+    }
+
+    /**
+     * Returns the generation of a handle, which changes every time the
+     * handle is released. The handle and its generation identify an
+     * entity even after the handle is reused.
+     *
+     * @param handle the handle
+     * @return the generation of the handle
+     */
+    public int getGeneration(int handle) {
+        return generations[handle];
+    }
+
+    /**
+     * Returns the handle of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the handle of the entity
+     */
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    /**
+     * Returns the model of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the model of the entity
+     */
+    public EntityModel getModel(int index) {
+        return models[index];
+    }
+
+    /**
+     * Returns the type of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the type of the entity
+     */
+    public ModelType getType(int index) {
+        return TYPES[type[index]];
+    }
+
+    /**
+     * Returns the x-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the x-coordinate in meters
+     */
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Returns the y-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the y-coordinate in meters
+     */
+    public float getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Returns the rotation of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the rotation in radians
+     */
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+
+    /**
+     * Sets the position of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @param x the x-coordinate in meters
+     * @param y the y-coordinate in meters
+     */
+    public void setPosition(int index, float x, float y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    /**
+     * Sets the rotation of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @param rotation the rotation in radians
+     */
+    public void setRotation(int index, float rotation) {
+        this.rotation[index] = rotation;
+    }
+
+    /**
+     * Returns the time to live of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the time to live in seconds
+     */
+    public float getTimeToLive(int index) {
+        return timeToLive[index];
+    }
+
+    /**
+     * Sets the time to live of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @param timeToLive the time to live in seconds
+     */
+    public void setTimeToLive(int index, float timeToLive) {
+        this.timeToLive[index] = timeToLive;
+    }
+
+    /**
+     * Returns if the entity at an index has a certain flag.
+     *
+     * @param index the index of the entity
+     * @param flag the flag
+     * @return true if the flag is set
+     */
+    public boolean hasFlag(int index, byte flag) {
+        return (flags[index] & flag) != 0;
+    }
+
+    /**
+     * Sets or clears a flag of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @param flag the flag
+     * @param value true to set the flag, false to clear it
+     */
+    public void setFlag(int index, byte flag, boolean value) {
+        if (value) flags[index] |= flag;
+        else flags[index] &= ~flag;
+    }
+}
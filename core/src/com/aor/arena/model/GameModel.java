@@ -1,37 +1,56 @@
 package com.aor.arena.model;
 
-import com.aor.arena.controller.GameController;
 import com.aor.arena.model.entities.AsteroidModel;
 import com.aor.arena.model.entities.BulletModel;
 import com.aor.arena.model.entities.EntityModel;
 import com.aor.arena.model.entities.ShipModel;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
 import com.badlogic.gdx.utils.Pool;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.badlogic.gdx.math.MathUtils.random;
-
 /**
- * A model representing a game.
+ * A model representing a game. Each game owns all of its state, so
+ * several games can live, and be simulated, at the same time.
  */
 
 public class GameModel {
     /**
-     * The singleton instance of the game model
+     * How many positions are drawn for an initial asteroid before it is
+     * placed at the last one, however close to the others.
      */
-    private static GameModel instance;
+    private static final int MAX_PLACEMENT_ATTEMPTS = 100;
 
     /**
-     * Number of asteroids in the beggining of the game
+     * The parameters of this game.
      */
+    private final ArenaConfig config;
+
+    /**
+     * The seed this game was created from.
+     */
+    private final long seed;
+
+    /**
+     * The random number generator used by this game.
+     */
+    private final RandomXS128 random;
 
-    private static final int ASTEROID_COUNT = 100;
     /**
      * The space ship controlled by the user in this game.
      */
     private ShipModel ship;
 
+    /**
+     * Every space ship in this game, starting with the one controlled
+     * by the user.
+     */
+    private List<ShipModel> ships;
+
     /**
      * The asteroids roaming around in this game.
      */
@@ -42,6 +61,32 @@ public class GameModel {
      */
     private List<BulletModel> bullets;
 
+    /**
+     * The state of every entity in this game, packed in primitive arrays.
+     */
+    private final EntityStore store;
+
+    /**
+     * The position of each ship, asteroid and bullet in its list, so
+     * that they can be removed without searching the lists.
+     */
+    private final ObjectIntMap<EntityModel> indexes = new ObjectIntMap<EntityModel>();
+
+    /**
+     * Models flagged for removal since the last time the queue was drained.
+     */
+    private final Array<EntityModel> removalQueue = new Array<EntityModel>();
+
+    /**
+     * A pool of asteroids
+     */
+    Pool<AsteroidModel> asteroidPool = new Pool<AsteroidModel>() {
+        @Override
+        protected AsteroidModel newObject() {
+            return new AsteroidModel(0, 0, 0, AsteroidModel.AsteroidSize.BIG);
+        }
+    };
+
     /**
      * A pool of bullets
      */
@@ -53,32 +98,141 @@ public class GameModel {
     };
 
     /**
-     * Returns a singleton instance of the game model
+     * Constructs a game with a.space ship in the middle of the
+     * arena and a certain number of asteroids in different sizes.
+     */
+    public GameModel() {
+        this(new RandomXS128().nextLong());
+    }
+
+    /**
+     * Constructs a game in the default arena whose random decisions are
+     * all taken from a seeded generator.
      *
-     * @return the singleton instance
+     * @param seed the seed of the random number generator
      */
-    public static GameModel getInstance() {
-        if (instance == null)
-            instance = new GameModel();
-        return instance;
+    public GameModel(long seed) {
+        this(new ArenaConfig(), seed);
     }
 
+    /**
+     * Constructs a game in a configured arena.
+     *
+     * @param config the parameters of the arena
+     */
+    public GameModel(ArenaConfig config) {
+        this(config, new RandomXS128().nextLong());
+    }
 
     /**
-     * Constructs a game with a.space ship in the middle of the
-     * arena and a certain number of asteroids in different sizes.
+     * Constructs a game in a configured arena whose random decisions are
+     * all taken from a seeded generator. Two games with the same
+     * configuration and seed, given the same inputs on the same steps,
+     * go through exactly the same states.
+     *
+     * @param config the parameters of the arena
+     * @param seed the seed of the random number generator
      */
-    private GameModel() {
+    public GameModel(ArenaConfig config, long seed) {
+        config.validate();
+        this.config = config;
+        this.seed = seed;
+        this.random = new RandomXS128(seed);
+        store = new EntityStore(Math.min(config.getAsteroidCount() * 2, config.getMaxEntities()));
         asteroids = new ArrayList<AsteroidModel>();
         bullets = new ArrayList<BulletModel>();
-        ship = new ShipModel(GameController.ARENA_WIDTH / 2, GameController.ARENA_HEIGHT / 2, 0);
+        ships = new ArrayList<ShipModel>();
+        ship = addShip(config.getWidth() / 2, config.getHeight() / 2);
+        createAsteroids();
+    }
+
+    /**
+     * Creates the initial asteroids at random positions. With a spacing,
+     * positions too close to an earlier asteroid are drawn again.
+     */
+    private void createAsteroids() {
+        float spacing = config.getAsteroidSpacing();
+        SpatialHash placed = spacing > 0 ? new SpatialHash(config.getWidth(), config.getHeight(), spacing) : null;
+        IntArray nearby = new IntArray();
+
+        for (int i = 0; i < config.getAsteroidCount(); i++) {
+            float x = random.nextFloat() * config.getWidth();
+            float y = random.nextFloat() * config.getHeight();
+            for (int attempt = 1; placed != null && attempt < MAX_PLACEMENT_ATTEMPTS && isCrowded(placed, nearby, x, y, spacing); attempt++) {
+                x = random.nextFloat() * config.getWidth();
+                y = random.nextFloat() * config.getHeight();
+            }
+
+            addAsteroid(obtainAsteroid(x, y, (float) Math.toRadians(random.nextFloat() * 360), nextAsteroidSize()));
+            if (placed != null)
+                placed.insert(i, x, y, 0);
+        }
+    }
+
+    /**
+     * Verifies if a position is too close to an initial asteroid
+     * already placed, across the arena edges.
+     *
+     * @param placed the asteroids already placed, by index
+     * @param nearby where the asteroids close to the position are found
+     * @param x the x-coordinate of the position in meters
+     * @param y the y-coordinate of the position in meters
+     * @param spacing the least distance between asteroids in meters
+     * @return true if the position is too close to an asteroid
+     */
+    private boolean isCrowded(SpatialHash placed, IntArray nearby, float x, float y, float spacing) {
+        nearby.clear();
+        placed.query(x - spacing, y - spacing, x + spacing, y + spacing, nearby);
+        for (int i = 0; i < nearby.size; i++) {
+            AsteroidModel asteroid = asteroids.get(nearby.get(i));
+            float dx = Math.abs(asteroid.getX() - x), dy = Math.abs(asteroid.getY() - y);
+            dx = Math.min(dx, config.getWidth() - dx);
+            dy = Math.min(dy, config.getHeight() - dy);
+            if (dx * dx + dy * dy < spacing * spacing)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks the size of an initial asteroid. An even mix takes a random
+     * bit, like the original arena did, so a seed still creates the
+     * same asteroids there.
+     *
+     * @return the size of the asteroid
+     */
+    private AsteroidModel.AsteroidSize nextAsteroidSize() {
+        boolean big = config.getBigAsteroidRatio() == .5f ? random.nextBoolean() : random.nextFloat() < config.getBigAsteroidRatio();
+        return big ? AsteroidModel.AsteroidSize.BIG : AsteroidModel.AsteroidSize.MEDIUM;
+    }
 
-        for (int i = 0; i < ASTEROID_COUNT; i++)
-            asteroids.add(new AsteroidModel(
-                    random.nextFloat() * GameController.ARENA_WIDTH,
-                    random.nextFloat() * GameController.ARENA_HEIGHT,
-                    (float) Math.toRadians(random.nextFloat() * 360),
-                    random.nextBoolean()?AsteroidModel.AsteroidSize.BIG:AsteroidModel.AsteroidSize.MEDIUM));
+    /**
+     * Returns the parameters of this game.
+     *
+     * @return the arena configuration
+     */
+    public ArenaConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the seed this game was created from. A game created
+     * with this seed starts exactly like this one did.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the random number generator used by this game. Games do
+     * not share generators, so they can be simulated in parallel.
+     *
+     * @return the random number generator
+     */
+    public RandomXS128 getRandom() {
+        return random;
     }
 
     /**
@@ -90,6 +244,31 @@ public class GameModel {
         return ship;
     }
 
+    /**
+     * Returns every space ship, starting with the player space ship.
+     *
+     * @return the ship list
+     */
+    public List<ShipModel> getShips() {
+        return ships;
+    }
+
+    /**
+     * Adds a space ship to this game. The first ship added is the
+     * player space ship.
+     *
+     * @param x the x-coordinate of the ship in meters
+     * @param y the y-coordinate of the ship in meters
+     * @return the ship
+     */
+    public ShipModel addShip(float x, float y) {
+        ShipModel ship = new ShipModel(x, y, 0);
+        ship.attach(store);
+        indexes.put(ship, ships.size());
+        ships.add(ship);
+        return ship;
+    }
+
     /**
      * Returns the asteroids.
      *
@@ -108,32 +287,118 @@ public class GameModel {
         return bullets;
     }
 
+    /**
+     * Returns the store holding the state of every entity in this game.
+     *
+     * @return the entity store
+     */
+    public EntityStore getStore() {
+        return store;
+    }
+
+    /**
+     * Creates a bullet in front of a ship.
+     *
+     * @param ship the ship firing the bullet
+     * @return the bullet
+     */
     public BulletModel createBullet(ShipModel ship) {
+        return createBullet(ship.getX() - (float)(Math.sin(ship.getRotation()) * 1.4), ship.getY() + (float)(Math.cos(ship.getRotation()) * 1.4), ship.getRotation());
+    }
+
+    /**
+     * Creates a bullet in a certain position.
+     *
+     * @param x the x-coordinate of the bullet in meters
+     * @param y the y-coordinate of the bullet in meters
+     * @param rotation the rotation of the bullet in radians
+     * @return the bullet
+     */
+    public BulletModel createBullet(float x, float y, float rotation) {
         BulletModel bullet = bulletPool.obtain();
+        bullet.attach(store);
 
         bullet.setFlaggedForRemoval(false);
-        bullet.setPosition(ship.getX() - (float)(Math.sin(ship.getRotation()) * 1.4), ship.getY() + (float)(Math.cos(ship.getRotation()) * 1.4));
-        bullet.setRotation(ship.getRotation());
-        bullet.setTimeToLive(.5f);
+        bullet.setPosition(x, y);
+        bullet.setRotation(rotation);
+        bullet.setTimeToLive(config.getBulletTimeToLive());
 
+        indexes.put(bullet, bullets.size());
         bullets.add(bullet);
 
         return bullet;
     }
 
     /**
-     * Removes a model from this game.
+     * Removes a model from this game. The last model of the same
+     * list takes the place of the removed one, so the order of
+     * the lists is not preserved. Removed asteroids and bullets are
+     * returned to their pools. The player space ship is never removed.
      *
      * @param model the model to be removed
      */
     public void remove(EntityModel model) {
-        if (model instanceof BulletModel) {
-            bullets.remove(model);
+        if (model instanceof ShipModel && model != ship && removeFrom(ships, model))
+            model.detach();
+        if (model instanceof BulletModel && removeFrom(bullets, model)) {
+            model.detach();
             bulletPool.free((BulletModel) model);
         }
-        if (model instanceof AsteroidModel) {
-            asteroids.remove(model);
+        if (model instanceof AsteroidModel && removeFrom(asteroids, model)) {
+            model.detach();
+            asteroidPool.free((AsteroidModel) model);
+        }
+    }
+
+    /**
+     * Removes a model from a list by moving the last element of
+     * the list into its position.
+     *
+     * @param list the list containing the model
+     * @param model the model to be removed
+     * @return true if the model was in the list
+     */
+    private <T extends EntityModel> boolean removeFrom(List<T> list, EntityModel model) {
+        int index = indexes.remove(model, -1);
+        if (index < 0) return false;
+
+        T last = list.remove(list.size() - 1);
+        if (last != model) {
+            list.set(index, last);
+            indexes.put(last, index);
         }
+        return true;
+    }
+
+    /**
+     * Returns an asteroid from the pool of asteroids. The asteroid
+     * still has to be added to the model with addAsteroid.
+     *
+     * @param x The x-coordinate of the asteroid.
+     * @param y The y-coordinate of the asteroid.
+     * @param rotation The rotation of the asteroid.
+     * @param size The size of the asteroid.
+     * @return the asteroid
+     */
+    public AsteroidModel obtainAsteroid(float x, float y, float rotation, AsteroidModel.AsteroidSize size) {
+        AsteroidModel asteroid = asteroidPool.obtain();
+
+        asteroid.setFlaggedForRemoval(false);
+        asteroid.setPosition(x, y);
+        asteroid.setRotation(rotation);
+        asteroid.setSize(size);
+
+        return asteroid;
+    }
+
+    /**
+     * Returns an asteroid obtained with obtainAsteroid, and never
+     * added to the model, to the pool of asteroids.
+     *
+     * @param asteroidModel the asteroid to be discarded
+     */
+    public void discardAsteroid(AsteroidModel asteroidModel) {
+        asteroidPool.free(asteroidModel);
     }
 
     /**
@@ -142,12 +407,47 @@ public class GameModel {
      * @param asteroidModel the asteroid model to be added
      */
     public void addAsteroid(AsteroidModel asteroidModel) {
+        asteroidModel.attach(store);
+        indexes.put(asteroidModel, asteroids.size());
         asteroids.add(asteroidModel);
     }
 
+    /**
+     * Flags a model for removal and adds it to the removal queue.
+     * Models that are already flagged are ignored.
+     *
+     * @param model the model to be removed
+     */
+    public void flagForRemoval(EntityModel model) {
+        if (model.isFlaggedToBeRemoved()) return;
+        model.setFlaggedForRemoval(true);
+        removalQueue.add(model);
+    }
+
+    /**
+     * Returns the models flagged for removal since the queue was last
+     * cleared. Whoever removes them should clear the queue afterwards.
+     *
+     * @return the removal queue
+     */
+    public Array<EntityModel> getRemovalQueue() {
+        return removalQueue;
+    }
+
+    /**
+     * Updates the model. Bullets whose time to live expired
+     * are flagged for removal.
+     *
+     * @param delta time since last update in seconds
+     */
     public void update(float delta) {
-        for (BulletModel bullet : bullets)
-            if (bullet.decreaseTimeToLive(delta))
-                bullet.setFlaggedForRemoval(true);
+        for (int i = 0; i < store.size(); i++) {
+            if (store.getType(i) != EntityModel.ModelType.BULLET)
+                continue;
+            float timeToLive = store.getTimeToLive(i) - delta;
+            store.setTimeToLive(i, timeToLive);
+            if (timeToLive < 0)
+                flagForRemoval(store.getModel(i));
+        }
     }
 }
@@ -0,0 +1,202 @@
+package com.aor.arena.model;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid covering the arena, used to quickly find the
+ * entities near a certain region.
+ *
+ * Entities are identified by integer ids (usually their handle in
+ * the entity store) and inserted with a bounding circle. The arena
+ * wraps around its edges, and so does the grid: an entity close to
+ * an edge is also found by queries on the other side of that edge.
+ *
+ * The grid is meant to be cleared and rebuilt every frame and does
+ * not allocate memory once it has grown to the number of entities.
+ */
+public class SpatialHash {
+    /**
+     * Number of columns of the grid.
+     */
+    private final int columns;
+
+    /**
+     * Number of rows of the grid.
+     */
+    private final int rows;
+
+    /**
+     * Width of each cell in meters.
+     */
+    private final float cellWidth;
+
+    /**
+     * Height of each cell in meters.
+     */
+    private final float cellHeight;
+
+    /**
+     * The first entry of each cell, or -1 if the cell is empty.
+     */
+    private final int[] heads;
+
+    /**
+     * The entry following each entry in the same cell, or -1.
+     */
+    private int[] next = new int[256];
+
+    /**
+     * The id stored in each entry.
+     */
+    private int[] ids = new int[256];
+
+    /**
+     * Number of entries in use.
+     */
+    private int entries;
+
+    /**
+     * The last query each id was returned by. Used to avoid returning
+     * the same id twice when an entity spans more than one cell.
+     */
+    private int[] stamps = new int[256];
+
+    /**
+     * The current query.
+     */
+    private int stamp;
+
+    /**
+     * Creates a grid covering an arena. The cell size is adjusted so
+     * that the arena is covered by a whole number of cells.
+     *
+     * @param width the width of the arena in meters
+     * @param height the height of the arena in meters
+     * @param cellSize the desired size of each cell in meters
+     */
+    public SpatialHash(float width, float height, float cellSize) {
+        columns = Math.max(1, Math.round(width / cellSize));
+        rows = Math.max(1, Math.round(height / cellSize));
+        cellWidth = width / columns;
+        cellHeight = height / rows;
+        heads = new int[columns * rows];
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * Removes every entity from the grid.
+     */
+    public void clear() {
+        Arrays.fill(heads, -1);
+        entries = 0;
+    }
+
+    /**
+     * Inserts an entity in every cell touched by its bounding circle.
+     *
+     * @param id the id of the entity, not negative
+     * @param x the x-coordinate of the entity in meters
+     * @param y the y-coordinate of the entity in meters
+     * @param radius the radius of the bounding circle in meters
+     */
+    public void insert(int id, float x, float y, float radius) {
+        int minColumn = column(x - radius), maxColumn = lastCell(minColumn, column(x + radius), columns);
+        int minRow = row(y - radius), maxRow = lastCell(minRow, row(y + radius), rows);
+
+        for (int r = minRow; r <= maxRow; r++)
+            for (int c = minColumn; c <= maxColumn; c++)
+                add(wrap(r, rows) * columns + wrap(c, columns), id);
+
+        if (id >= stamps.length)
+            stamps = Arrays.copyOf(stamps, Math.max(id + 1, stamps.length * 2));
+    }
+
+    /**
+     * Finds the entities whose cells intersect a rectangle. The
+     * rectangle may extend past the arena edges, in which case it
+     * wraps around to the other side. Each id is returned at most
+     * once, but entities outside the rectangle may also be returned.
+     *
+     * @param minX the minimum x-coordinate of the rectangle in meters
+     * @param minY the minimum y-coordinate of the rectangle in meters
+     * @param maxX the maximum x-coordinate of the rectangle in meters
+     * @param maxY the maximum y-coordinate of the rectangle in meters
+     * @param result the array the ids are added to
+     */
+    public void query(float minX, float minY, float maxX, float maxY, IntArray result) {
+        int minColumn = column(minX), maxColumn = lastCell(minColumn, column(maxX), columns);
+        int minRow = row(minY), maxRow = lastCell(minRow, row(maxY), rows);
+
+        stamp++;
+        for (int r = minRow; r <= maxRow; r++)
+            for (int c = minColumn; c <= maxColumn; c++)
+                for (int entry = heads[wrap(r, rows) * columns + wrap(c, columns)]; entry != -1; entry = next[entry]) {
+                    int id = ids[entry];
+                    if (stamps[id] == stamp) continue;
+                    stamps[id] = stamp;
+                    result.add(id);
+                }
+    }
+
+    /**
+     * Adds an entry to a cell.
+     *
+     * @param cell the cell
+     * @param id the id of the entity
+     */
+    private void add(int cell, int id) {
+        if (entries == ids.length) {
+            ids = Arrays.copyOf(ids, entries * 2);
+            next = Arrays.copyOf(next, entries * 2);
+        }
+        ids[entries] = id;
+        next[entries] = heads[cell];
+        heads[cell] = entries++;
+    }
+
+    /**
+     * Returns the unwrapped column containing an x-coordinate.
+     *
+     * @param x the x-coordinate in meters
+     * @return the column, possibly outside the grid
+     */
+    private int column(float x) {
+        return (int) Math.floor(x / cellWidth);
+    }
+
+    /**
+     * Returns the unwrapped row containing an y-coordinate.
+     *
+     * @param y the y-coordinate in meters
+     * @return the row, possibly outside the grid
+     */
+    private int row(float y) {
+        return (int) Math.floor(y / cellHeight);
+    }
+
+    /**
+     * Limits a range of cells so that no cell is visited twice.
+     *
+     * @param first the first cell of the range
+     * @param last the last cell of the range
+     * @param count the number of cells in the grid along this axis
+     * @return the last cell of the limited range
+     */
+    private static int lastCell(int first, int last, int count) {
+        return Math.min(last, first + count - 1);
+    }
+
+    /**
+     * Wraps a cell coordinate into the grid.
+     *
+     * @param cell the cell coordinate, possibly outside the grid
+     * @param count the number of cells in the grid along this axis
+     * @return the wrapped cell coordinate
+     */
+    private static int wrap(int cell, int count) {
+        cell %= count;
+        return cell < 0 ? cell + count : cell;
+    }
+}
@@ -0,0 +1,167 @@
+package com.aor.arena.model;
+
+import com.aor.arena.model.entities.EntityModel.ModelType;
+
+import java.util.Arrays;
+
+/**
+ * A copy of the transform of every entity at the end of a simulation
+ * step, published by the simulation thread to the rendering thread.
+ * Frames are reused, so the arrays only grow when a game does.
+ */
+public class StateFrame implements EntityState {
+    /**
+     * The model types, indexed by ordinal.
+     */
+    private static final ModelType[] TYPES = ModelType.values();
+
+    /**
+     * When the step was simulated, in nanoseconds.
+     */
+    private long time;
+
+    /**
+     * Number of entities in this frame.
+     */
+    private int size;
+
+    /**
+     * The handle of each entity.
+     */
+    private int[] handles = new int[0];
+
+    /**
+     * The generation of the handle of each entity.
+     */
+    private int[] generations = new int[0];
+
+    /**
+     * The type ordinal of each entity.
+     */
+    private byte[] types = new byte[0];
+
+    /**
+     * The x-coordinates in meters.
+     */
+    private float[] x = new float[0];
+
+    /**
+     * The y-coordinates in meters.
+     */
+    private float[] y = new float[0];
+
+    /**
+     * The rotations in radians.
+     */
+    private float[] rotation = new float[0];
+
+    /**
+     * The index of the entity with each handle, or -1.
+     */
+    private int[] indexes = new int[0];
+
+    /**
+     * Was the spaceship accelerating during the step.
+     */
+    private boolean shipAccelerating;
+
+    /**
+     * Copies the state of a game into this frame, replacing its contents.
+     *
+     * @param store the entity store of the game
+     * @param shipAccelerating was the spaceship accelerating
+     * @param time when the step was simulated, in nanoseconds
+     */
+    public void copy(EntityStore store, boolean shipAccelerating, long time) {
+        for (int i = 0; i < size; i++)
+            indexes[handles[i]] = -1;
+
+        size = store.size();
+        if (size > x.length) {
+            int capacity = Math.max(size, x.length * 2);
+            handles = Arrays.copyOf(handles, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            types = Arrays.copyOf(types, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            rotation = Arrays.copyOf(rotation, capacity);
+        }
+
+        for (int i = 0; i < size; i++) {
+            int handle = store.getHandle(i);
+            if (handle >= indexes.length) {
+                int old = indexes.length;
+                indexes = Arrays.copyOf(indexes, Math.max(handle + 1, old * 2));
+                Arrays.fill(indexes, old, indexes.length, -1);
+            }
+            handles[i] = handle;
+            generations[i] = store.getGeneration(handle);
+            types[i] = (byte) store.getType(i).ordinal();
+            x[i] = store.getX(i);
+            y[i] = store.getY(i);
+            rotation[i] = store.getRotation(i);
+            indexes[handle] = i;
+        }
+
+        this.shipAccelerating = shipAccelerating;
+        this.time = time;
+    }
+
+    /**
+     * Returns when the step was simulated.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns if the spaceship was accelerating during the step.
+     *
+     * @return true if the spaceship was accelerating
+     */
+    public boolean isShipAccelerating() {
+        return shipAccelerating;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(int handle) {
+        return handle < indexes.length ? indexes[handle] : -1;
+    }
+
+    @Override
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    @Override
+    public int getGeneration(int handle) {
+        return generations[indexes[handle]];
+    }
+
+    @Override
+    public ModelType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    @Override
+    public float getX(int index) {
+        return x[index];
+    }
+
+    @Override
+    public float getY(int index) {
+        return y[index];
+    }
+
+    @Override
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+}
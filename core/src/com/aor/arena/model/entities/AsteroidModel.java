@@ -36,6 +36,16 @@ public class AsteroidModel extends EntityModel{
         return size;
     }
 
+    /**
+     * Sets the size of this asteroid. Should only be
+     * changed while the asteroid is not part of a game.
+     *
+     * @param size The size of this asteroid.
+     */
+    public void setSize(AsteroidSize size) {
+        this.size = size;
+    }
+
     @Override
     public ModelType getType() {
         if (size == AsteroidSize.BIG)
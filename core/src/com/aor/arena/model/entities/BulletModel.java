@@ -1,5 +1,7 @@
 package com.aor.arena.model.entities;
 
+import com.aor.arena.model.EntityStore;
+
 /**
  * A model representing a single bullet.
  */
@@ -24,8 +26,17 @@ public class BulletModel extends EntityModel{
      * @return
      */
     public boolean decreaseTimeToLive(float delta) {
-        timeToLive -= delta;
-        return  timeToLive < 0;
+        setTimeToLive(getTimeToLive() - delta);
+        return getTimeToLive() < 0;
+    }
+
+    /**
+     * Returns this bullet's time to live in seconds
+     *
+     * @return the time to live
+     */
+    public float getTimeToLive() {
+        return store == null ? timeToLive : store.getTimeToLive(store.indexOf(handle));
     }
 
     /**
@@ -33,7 +44,23 @@ public class BulletModel extends EntityModel{
      * @param timeToLive
      */
     public void setTimeToLive(float timeToLive) {
-        this.timeToLive = timeToLive;
+        if (store == null)
+            this.timeToLive = timeToLive;
+        else
+            store.setTimeToLive(store.indexOf(handle), timeToLive);
+    }
+
+    @Override
+    public void attach(EntityStore store) {
+        float timeToLive = this.timeToLive;
+        super.attach(store);
+        store.setTimeToLive(store.indexOf(handle), timeToLive);
+    }
+
+    @Override
+    public void detach() {
+        timeToLive = getTimeToLive();
+        super.detach();
     }
 
     @Override
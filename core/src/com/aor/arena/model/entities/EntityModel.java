@@ -1,9 +1,13 @@
 package com.aor.arena.model.entities;
 
-import com.aor.arena.view.entities.ViewFactory;
+import com.aor.arena.model.EntityStore;
 
 /**
  * An abstract model representing an entity belonging to a game model.
+ *
+ * While the entity belongs to a game its state lives in the game
+ * entity store and this model just points to it. Models that do not
+ * belong to a game keep their state in their own fields.
  */
 public abstract class EntityModel {
     public enum ModelType {BIGASTEROID, MEDIUMASTEROID, SHIP, BULLET};
@@ -28,6 +32,16 @@ public abstract class EntityModel {
      */
     private boolean flaggedForRemoval = false;
 
+    /**
+     * The store holding the state of this model, or null if detached.
+     */
+    EntityStore store;
+
+    /**
+     * The handle of this model in the store, or -1 if detached.
+     */
+    int handle = -1;
+
     /**
      * Constructs a model with a position and a rotation.
      *
@@ -47,7 +61,7 @@ public abstract class EntityModel {
      * @return The x-coordinate of this entity in meters.
      */
     public float getX() {
-        return x;
+        return store == null ? x : store.getX(store.indexOf(handle));
     }
 
     /**
@@ -56,7 +70,7 @@ public abstract class EntityModel {
      * @return The y-coordinate of this entity in meters.
      */
     public float getY() {
-        return y;
+        return store == null ? y : store.getY(store.indexOf(handle));
     }
 
     /**
@@ -65,7 +79,7 @@ public abstract class EntityModel {
      * @return The rotation of this entity in radians.
      */
     public float getRotation() {
-        return rotation;
+        return store == null ? rotation : store.getRotation(store.indexOf(handle));
     }
 
     /**
@@ -75,8 +89,11 @@ public abstract class EntityModel {
      * @param y The y-coordinate of this entity in meters.
      */
     public void setPosition(float x, float y) {
-        this.x = x;
-        this.y = y;
+        if (store == null) {
+            this.x = x;
+            this.y = y;
+        } else
+            store.setPosition(store.indexOf(handle), x, y);
     }
 
     /**
@@ -85,7 +102,10 @@ public abstract class EntityModel {
      * @param rotation The current rotation of this entity in radians.
      */
     public void setRotation(float rotation) {
-        this.rotation = rotation;
+        if (store == null)
+            this.rotation = rotation;
+        else
+            store.setRotation(store.indexOf(handle), rotation);
     }
 
     /**
@@ -94,14 +114,56 @@ public abstract class EntityModel {
      * @return
      */
     public boolean isFlaggedToBeRemoved() {
-        return flaggedForRemoval;
+        return store == null ? flaggedForRemoval : store.hasFlag(store.indexOf(handle), EntityStore.FLAG_REMOVAL);
     }
 
     /**
      * Makes this model flagged for removal on next step
      */
     public void setFlaggedForRemoval(boolean flaggedForRemoval) {
-        this.flaggedForRemoval = flaggedForRemoval;
+        if (store == null)
+            this.flaggedForRemoval = flaggedForRemoval;
+        else
+            store.setFlag(store.indexOf(handle), EntityStore.FLAG_REMOVAL, flaggedForRemoval);
+    }
+
+    /**
+     * Moves the state of this model into a store.
+     *
+     * @param store the store that will hold the state of this model
+     */
+    public void attach(EntityStore store) {
+        handle = store.add(this);
+        int index = store.indexOf(handle);
+        store.setPosition(index, x, y);
+        store.setRotation(index, rotation);
+        store.setFlag(index, EntityStore.FLAG_REMOVAL, flaggedForRemoval);
+        this.store = store;
+    }
+
+    /**
+     * Moves the state of this model out of its store back
+     * into this model and releases its handle.
+     */
+    public void detach() {
+        int index = store.indexOf(handle);
+        x = store.getX(index);
+        y = store.getY(index);
+        rotation = store.getRotation(index);
+        flaggedForRemoval = store.hasFlag(index, EntityStore.FLAG_REMOVAL);
+        store.remove(handle);
+        store = null;
+        handle = -1;
+    }
+
+    /**
+     * Returns the handle of this model in its store. The handle
+     * does not change while the model is attached.
+     *
+     * @return the handle, or -1 if this model is not attached to a store
+     */
+    public int getHandle() {
+        return handle;
     }
 
     public abstract ModelType getType();
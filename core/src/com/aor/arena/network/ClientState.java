@@ -0,0 +1,103 @@
+package com.aor.arena.network;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * The snapshots received by a client. The server encodes each snapshot
+ * against the last one the client acknowledged, which may be a few
+ * snapshots old when acknowledgements are in flight, so the client
+ * keeps the last HISTORY snapshots it received.
+ */
+public class ClientState {
+    /**
+     * Number of snapshots kept by clients, and by the server for each of
+     * them. Snapshots older than this are sent without a base.
+     */
+    public static final int HISTORY = 64;
+
+    /**
+     * The last snapshots received, indexed by tick modulo HISTORY.
+     */
+    private final QuantizedState[] states = new QuantizedState[HISTORY];
+
+    /**
+     * The last snapshot received, or null.
+     */
+    private QuantizedState latest;
+
+    /**
+     * Creates the snapshot history of a client, once it knows the size
+     * of the arena from the welcome message.
+     *
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     */
+    public ClientState(float width, float height) {
+        for (int i = 0; i < HISTORY; i++)
+            states[i] = new QuantizedState(width, height);
+    }
+
+    /**
+     * Decodes a snapshot message.
+     *
+     * @param payload the payload of the message
+     * @return the decoded state
+     * @throws ProtocolException if the base of the snapshot is no longer kept
+     */
+    public QuantizedState read(ByteBuffer payload) throws ProtocolException {
+        int baseTick = DeltaCodec.peekBaseTick(payload);
+        QuantizedState base = null;
+        if (baseTick != -1) {
+            base = get(baseTick);
+            if (base == null)
+                throw new ProtocolException("Snapshot based on a lost tick: " + baseTick);
+        }
+
+        int tick = payload.getInt(payload.position());
+        QuantizedState state = states[index(tick)];
+        DeltaCodec.decode(payload, base, state);
+        latest = state;
+        return state;
+    }
+
+    /**
+     * Returns a snapshot received before, if it is still kept.
+     *
+     * @param tick the tick of the snapshot
+     * @return the snapshot, or null if it is not kept
+     */
+    public QuantizedState get(int tick) {
+        QuantizedState state = states[index(tick)];
+        return state.getTick() == tick ? state : null;
+    }
+
+    /**
+     * Returns the last snapshot received.
+     *
+     * @return the snapshot, or null if none was received yet
+     */
+    public QuantizedState getLatest() {
+        return latest;
+    }
+
+    /**
+     * Returns the tick to acknowledge, which the server may encode the
+     * next snapshots against.
+     *
+     * @return the tick of the last snapshot received, or -1
+     */
+    public int getAck() {
+        return latest == null ? -1 : latest.getTick();
+    }
+
+    /**
+     * Returns the slot of a tick in the history.
+     *
+     * @param tick the tick
+     * @return the slot
+     */
+    private static int index(int tick) {
+        return tick & (HISTORY - 1);
+    }
+}
@@ -0,0 +1,245 @@
+package com.aor.arena.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a state as its differences from a state the client already
+ * has, and decodes it back.
+ *
+ * A snapshot starts with its tick and the tick of its base, or -1 if it
+ * has no base and holds every entity. Then come the handles of the
+ * entities of the base that no longer exist, and each entity that is
+ * new or moved: its handle, a mask of the fields that follow, its type
+ * and generation if it is new, and each changed coordinate, either as a
+ * signed byte added to the base or as a whole 16-bit value. Entities
+ * that did not move take no space at all, and most moving entities
+ * only take a few bytes.
+ *
+ * Snapshots can also hold only some of the entities of a state, such as
+ * those selected by an interest filter: entities leaving the selection
+ * are sent as removed, and those entering it as new.
+ */
+public final class DeltaCodec {
+    /**
+     * The entity is new, or its handle was reused: type and generation follow.
+     */
+    private static final int NEW = 0x01;
+
+    /**
+     * A whole x-coordinate follows.
+     */
+    private static final int X = 0x02;
+
+    /**
+     * A whole y-coordinate follows.
+     */
+    private static final int Y = 0x04;
+
+    /**
+     * A whole rotation follows.
+     */
+    private static final int ROTATION = 0x08;
+
+    /**
+     * The difference of the x-coordinate to the base follows, as a byte.
+     */
+    private static final int SMALL_X = 0x10;
+
+    /**
+     * The difference of the y-coordinate to the base follows, as a byte.
+     */
+    private static final int SMALL_Y = 0x20;
+
+    /**
+     * The difference of the rotation to the base follows, as a byte.
+     */
+    private static final int SMALL_ROTATION = 0x40;
+
+    /**
+     * The largest handle or count that can be encoded, and so the most
+     * entities an arena served over the network can have.
+     */
+    public static final int MAX_VALUE = 0xFFFF;
+
+    private DeltaCodec() {
+    }
+
+    /**
+     * Writes a snapshot message holding a state.
+     *
+     * @param buffer the buffer the message is written to
+     * @param base the state the client already has, or null to send every entity
+     * @param current the state to send
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     * @throws IllegalStateException if a handle is too large to be encoded
+     */
+    public static void encode(ByteBuffer buffer, QuantizedState base, QuantizedState current) {
+        encode(buffer, base, null, current, null);
+    }
+
+    /**
+     * Writes a snapshot message holding some of the entities of a state.
+     *
+     * @param buffer the buffer the message is written to
+     * @param base the state the client already has, or null to send every selected entity
+     * @param baseSelection the entities of the base the client has, or null for all of them
+     * @param current the state to send
+     * @param selection the entities of the state to send, or null for all of them
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     * @throws IllegalStateException if a handle is too large to be encoded
+     */
+    public static void encode(ByteBuffer buffer, QuantizedState base, EntitySelection baseSelection, QuantizedState current, EntitySelection selection) {
+        int start = Protocol.begin(buffer, Protocol.SNAPSHOT);
+        buffer.putInt(current.getTick());
+        buffer.putInt(base == null ? -1 : base.getTick());
+
+        int countPosition = buffer.position();
+        int count = 0;
+        buffer.putShort((short) 0);
+        if (base != null) {
+            int size = baseSelection == null ? base.size() : baseSelection.size();
+            for (int k = 0; k < size; k++) {
+                int handle = base.getHandle(baseSelection == null ? k : baseSelection.get(k));
+                if (current.indexOf(handle) == -1 || selection != null && !selection.contains(handle)) {
+                    buffer.putShort((short) handle);
+                    count++;
+                }
+            }
+        }
+        buffer.putShort(countPosition, (short) count);
+
+        countPosition = buffer.position();
+        count = 0;
+        buffer.putShort((short) 0);
+        int size = selection == null ? current.size() : selection.size();
+        for (int k = 0; k < size; k++) {
+            int i = selection == null ? k : selection.get(k);
+            int handle = current.getHandle(i);
+            if (handle > MAX_VALUE)
+                throw new IllegalStateException("Handle too large to be encoded: " + handle);
+
+            int b = base == null || baseSelection != null && !baseSelection.contains(handle) ? -1 : base.indexOf(handle);
+            if (b != -1 && (base.getGeneration(handle) != current.getGeneration(handle) || base.getTypeOrdinal(b) != current.getTypeOrdinal(i)))
+                b = -1;
+
+            int x = current.getQuantizedX(i), y = current.getQuantizedY(i), rotation = current.getQuantizedRotation(i);
+            int dx = b == -1 ? 0 : x - base.getQuantizedX(b);
+            int dy = b == -1 ? 0 : y - base.getQuantizedY(b);
+            int drotation = b == -1 ? 0 : (short) (rotation - base.getQuantizedRotation(b));
+
+            int mask = b == -1 ? NEW | X | Y | ROTATION : field(dx, X, SMALL_X) | field(dy, Y, SMALL_Y) | field(drotation, ROTATION, SMALL_ROTATION);
+            if (mask == 0) continue;
+
+            buffer.putShort((short) handle);
+            buffer.put((byte) mask);
+            if ((mask & NEW) != 0) {
+                buffer.put((byte) current.getTypeOrdinal(i));
+                buffer.putShort((short) current.getGeneration(handle));
+            }
+            put(buffer, mask, X, SMALL_X, x, dx);
+            put(buffer, mask, Y, SMALL_Y, y, dy);
+            put(buffer, mask, ROTATION, SMALL_ROTATION, rotation, drotation);
+            count++;
+        }
+        buffer.putShort(countPosition, (short) count);
+
+        Protocol.end(buffer, start);
+    }
+
+    /**
+     * Reads the tick of the base of a snapshot, without consuming it.
+     *
+     * @param buffer the payload of a snapshot message
+     * @return the tick of the base, or -1 if the snapshot has no base
+     */
+    public static int peekBaseTick(ByteBuffer buffer) {
+        return buffer.getInt(buffer.position() + 4);
+    }
+
+    /**
+     * Reads the payload of a snapshot message.
+     *
+     * @param buffer the payload of the message
+     * @param base the base of the snapshot, or null if it has none
+     * @param into the state the snapshot is decoded into
+     */
+    public static void decode(ByteBuffer buffer, QuantizedState base, QuantizedState into) {
+        int tick = buffer.getInt();
+        buffer.getInt();
+        if (base != null) into.set(base, tick);
+        else into.clear(tick);
+
+        int removed = buffer.getShort() & MAX_VALUE;
+        for (int i = 0; i < removed; i++)
+            into.remove(buffer.getShort() & MAX_VALUE);
+
+        int changed = buffer.getShort() & MAX_VALUE;
+        for (int i = 0; i < changed; i++) {
+            int handle = buffer.getShort() & MAX_VALUE;
+            int mask = buffer.get() & 0xFF;
+
+            int index = into.indexOf(handle);
+            int type, generation, x, y, rotation;
+            if ((mask & NEW) != 0) {
+                type = buffer.get();
+                generation = buffer.getShort() & MAX_VALUE;
+                x = y = rotation = 0;
+            } else {
+                type = into.getTypeOrdinal(index);
+                generation = into.getGeneration(handle);
+                x = into.getQuantizedX(index);
+                y = into.getQuantizedY(index);
+                rotation = into.getQuantizedRotation(index);
+            }
+            x = get(buffer, mask, X, SMALL_X, x);
+            y = get(buffer, mask, Y, SMALL_Y, y);
+            rotation = get(buffer, mask, ROTATION, SMALL_ROTATION, rotation);
+
+            into.put(handle, generation, type, x, y, rotation);
+        }
+    }
+
+    /**
+     * Chooses how to encode a field.
+     *
+     * @param difference the difference of the field to the base
+     * @param whole the flag of a whole value
+     * @param small the flag of a difference
+     * @return the flag to set, or 0 if the field did not change
+     */
+    private static int field(int difference, int whole, int small) {
+        if (difference == 0) return 0;
+        return difference >= Byte.MIN_VALUE && difference <= Byte.MAX_VALUE ? small : whole;
+    }
+
+    /**
+     * Writes a field, as selected by the mask.
+     *
+     * @param buffer the buffer
+     * @param mask the mask of the entity
+     * @param whole the flag of a whole value
+     * @param small the flag of a difference
+     * @param value the value of the field
+     * @param difference the difference of the field to the base
+     */
+    private static void put(ByteBuffer buffer, int mask, int whole, int small, int value, int difference) {
+        if ((mask & whole) != 0) buffer.putShort((short) value);
+        else if ((mask & small) != 0) buffer.put((byte) difference);
+    }
+
+    /**
+     * Reads a field, as selected by the mask.
+     *
+     * @param buffer the buffer
+     * @param mask the mask of the entity
+     * @param whole the flag of a whole value
+     * @param small the flag of a difference
+     * @param value the value of the field in the base
+     * @return the value of the field
+     */
+    private static int get(ByteBuffer buffer, int mask, int whole, int small, int value) {
+        if ((mask & whole) != 0) return buffer.getShort() & MAX_VALUE;
+        if ((mask & small) != 0) return (value + buffer.get()) & MAX_VALUE;
+        return value;
+    }
+}
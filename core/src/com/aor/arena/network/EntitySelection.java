@@ -0,0 +1,111 @@
+package com.aor.arena.network;
+
+import java.util.Arrays;
+
+/**
+ * Some of the entities of a snapshot, such as those a client is
+ * interested in. Entities are referred to by their index in the
+ * snapshot, so a selection is only valid while the snapshot it was
+ * made from is kept, and it takes a few bytes per selected entity
+ * instead of a copy of each one.
+ */
+public class EntitySelection {
+    /**
+     * The step of the snapshot this selection was made from, or -1.
+     */
+    private int tick = -1;
+
+    /**
+     * Number of selected entities.
+     */
+    private int size;
+
+    /**
+     * The index of each selected entity in the snapshot.
+     */
+    private int[] indexes = new int[16];
+
+    /**
+     * The handle of each selected entity, so clearing the selection
+     * only touches the bits that were set.
+     */
+    private int[] handles = new int[16];
+
+    /**
+     * A bit for each handle, set if the entity with that handle is selected.
+     */
+    private long[] members = new long[0];
+
+    /**
+     * Removes every entity, to select entities of another snapshot. Only
+     * the bits of the selected entities are cleared, so clearing takes
+     * as long as the selection is large, however large the world.
+     *
+     * @param tick the step of the snapshot
+     */
+    public void clear(int tick) {
+        for (int i = 0; i < size; i++)
+            members[handles[i] >>> 6] = 0;
+        size = 0;
+        this.tick = tick;
+    }
+
+    /**
+     * Selects an entity.
+     *
+     * @param index the index of the entity in the snapshot
+     * @param handle the handle of the entity
+     */
+    public void add(int index, int handle) {
+        if (size == indexes.length) {
+            indexes = Arrays.copyOf(indexes, size * 2);
+            handles = Arrays.copyOf(handles, size * 2);
+        }
+        indexes[size] = index;
+        handles[size++] = handle;
+
+        int word = handle >>> 6;
+        if (word >= members.length)
+            members = Arrays.copyOf(members, Math.max(word + 1, members.length * 2));
+        members[word] |= 1L << handle;
+    }
+
+    /**
+     * Verifies if the entity with a certain handle is selected.
+     *
+     * @param handle the handle of the entity
+     * @return true if the entity is selected
+     */
+    public boolean contains(int handle) {
+        int word = handle >>> 6;
+        return word < members.length && (members[word] & 1L << handle) != 0;
+    }
+
+    /**
+     * Returns the step of the snapshot this selection was made from.
+     *
+     * @return the tick, or -1 if nothing was selected yet
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the number of selected entities.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index in the snapshot of a selected entity.
+     *
+     * @param i the position of the entity in this selection
+     * @return the index of the entity in the snapshot
+     */
+    public int get(int i) {
+        return indexes[i];
+    }
+}
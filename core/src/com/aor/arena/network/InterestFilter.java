@@ -0,0 +1,238 @@
+package com.aor.arena.network;
+
+import java.util.Arrays;
+
+/**
+ * Selects the entities each client is interested in: those inside a
+ * rectangle centered on its ship, wrapping around the arena edges like
+ * the arena itself. The rectangle is larger than the viewport, so
+ * entities enter it before they become visible.
+ *
+ * The entities of a snapshot are sorted once per step by the cell of a
+ * uniform grid they are in, so selecting the entities of a client only
+ * visits the cells its rectangle touches, and only entities in the
+ * cells along the border of the rectangle are tested against it. The
+ * cost of a client grows with the entities near it, however large the
+ * arena is. Unlike the spatial hash, which handles entities of any
+ * size, the grid takes entities as points, so each one is in a single
+ * cell and cells are read in order.
+ *
+ * Entities entering the rectangle of a client are sent as new, and the
+ * ones leaving it as removed, by the delta codec.
+ */
+public class InterestFilter {
+    /**
+     * The default width of the rectangle in meters: the viewport and a
+     * margin for the largest asteroids.
+     */
+    public static final float DEFAULT_WIDTH = 40;
+
+    /**
+     * The default height of the rectangle in meters, enough for the
+     * viewport of a 4:3 screen.
+     */
+    public static final float DEFAULT_HEIGHT = 30;
+
+    /**
+     * The desired size of each cell of the grid in meters.
+     */
+    private static final float CELL_SIZE = 5;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float arenaWidth;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float arenaHeight;
+
+    /**
+     * Number of columns of the grid.
+     */
+    private final int columns;
+
+    /**
+     * Number of rows of the grid.
+     */
+    private final int rows;
+
+    /**
+     * Width of each cell, quantized.
+     */
+    private final float cellWidth;
+
+    /**
+     * Height of each cell, quantized.
+     */
+    private final float cellHeight;
+
+    /**
+     * Half of the width of the rectangle, quantized.
+     */
+    private final int halfWidth;
+
+    /**
+     * Half of the height of the rectangle, quantized.
+     */
+    private final int halfHeight;
+
+    /**
+     * Where the entities of each cell start in the sorted indexes. The
+     * entities of the last cell end at the last element.
+     */
+    private final int[] cellStarts;
+
+    /**
+     * The index of each entity of the last snapshot sorted, sorted by cell.
+     */
+    private int[] sorted = new int[0];
+
+    /**
+     * The cell of each entity of the last snapshot sorted.
+     */
+    private int[] cells = new int[0];
+
+    /**
+     * Creates a filter with the default rectangle.
+     *
+     * @param arenaWidth the arena width in meters
+     * @param arenaHeight the arena height in meters
+     */
+    public InterestFilter(float arenaWidth, float arenaHeight) {
+        this(arenaWidth, arenaHeight, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param arenaWidth the arena width in meters
+     * @param arenaHeight the arena height in meters
+     * @param width the width of the rectangle in meters
+     * @param height the height of the rectangle in meters
+     */
+    public InterestFilter(float arenaWidth, float arenaHeight, float width, float height) {
+        this.arenaWidth = arenaWidth;
+        this.arenaHeight = arenaHeight;
+        columns = Math.max(1, Math.round(arenaWidth / CELL_SIZE));
+        rows = Math.max(1, Math.round(arenaHeight / CELL_SIZE));
+        cellWidth = (Protocol.QUANTIZED_MAX + 1f) / columns;
+        cellHeight = (Protocol.QUANTIZED_MAX + 1f) / rows;
+        cellStarts = new int[columns * rows + 1];
+
+        halfWidth = Protocol.quantize(Math.min(width, arenaWidth) / 2, arenaWidth);
+        halfHeight = Protocol.quantize(Math.min(height, arenaHeight) / 2, arenaHeight);
+    }
+
+    /**
+     * Sorts the entities of a snapshot by cell. Must be called before
+     * selecting entities from it.
+     *
+     * @param world the snapshot with every entity
+     */
+    public void update(QuantizedState world) {
+        int size = world.size();
+        if (size > sorted.length) {
+            sorted = new int[Math.max(size, sorted.length * 2)];
+            cells = new int[sorted.length];
+        }
+
+        Arrays.fill(cellStarts, 0);
+        for (int i = 0; i < size; i++) {
+            int cell = row(world.getQuantizedY(i)) * columns + column(world.getQuantizedX(i));
+            cells[i] = cell;
+            cellStarts[cell + 1]++;
+        }
+        for (int cell = 1; cell < cellStarts.length; cell++)
+            cellStarts[cell] += cellStarts[cell - 1];
+        for (int i = 0; i < size; i++)
+            sorted[cellStarts[cells[i]]++] = i;
+        for (int cell = cellStarts.length - 1; cell > 0; cell--)
+            cellStarts[cell] = cellStarts[cell - 1];
+        cellStarts[0] = 0;
+    }
+
+    /**
+     * Selects the entities of a snapshot inside the rectangle centered
+     * on a point.
+     *
+     * @param world the snapshot with every entity, as last sorted
+     * @param x the x-coordinate of the center in meters
+     * @param y the y-coordinate of the center in meters
+     * @param into the selection the entities are added to, replacing its contents
+     */
+    public void select(QuantizedState world, float x, float y, EntitySelection into) {
+        into.clear(world.getTick());
+
+        int centerX = Protocol.quantize(x, arenaWidth), centerY = Protocol.quantize(y, arenaHeight);
+        int minX = centerX - halfWidth, maxX = centerX + halfWidth;
+        int minY = centerY - halfHeight, maxY = centerY + halfHeight;
+
+        int minColumn = column(minX), maxColumn = Math.min(column(maxX), minColumn + columns - 1);
+        int minRow = row(minY), maxRow = Math.min(row(maxY), minRow + rows - 1);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            boolean borderRow = r == minRow || r == maxRow;
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = wrap(r, rows) * columns + wrap(c, columns);
+                int start = cellStarts[cell], end = cellStarts[cell + 1];
+                if (borderRow || c == minColumn || c == maxColumn) {
+                    for (int i = start; i < end; i++) {
+                        int index = sorted[i];
+                        if (distance(world.getQuantizedX(index), centerX) <= halfWidth && distance(world.getQuantizedY(index), centerY) <= halfHeight)
+                            into.add(index, world.getHandle(index));
+                    }
+                } else {
+                    for (int i = start; i < end; i++)
+                        into.add(sorted[i], world.getHandle(sorted[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the unwrapped column containing a quantized x-coordinate.
+     *
+     * @param x the quantized x-coordinate, possibly outside the arena
+     * @return the column, possibly outside the grid
+     */
+    private int column(int x) {
+        return (int) Math.floor(x / cellWidth);
+    }
+
+    /**
+     * Returns the unwrapped row containing a quantized y-coordinate.
+     *
+     * @param y the quantized y-coordinate, possibly outside the arena
+     * @return the row, possibly outside the grid
+     */
+    private int row(int y) {
+        return (int) Math.floor(y / cellHeight);
+    }
+
+    /**
+     * Wraps a cell coordinate into the grid.
+     *
+     * @param cell the cell coordinate, possibly outside the grid
+     * @param count the number of cells in the grid along this axis
+     * @return the wrapped cell coordinate
+     */
+    private static int wrap(int cell, int count) {
+        cell %= count;
+        return cell < 0 ? cell + count : cell;
+    }
+
+    /**
+     * Returns the distance between two quantized coordinates, across
+     * the arena edge if that is shorter.
+     *
+     * @param a the first quantized coordinate
+     * @param b the second quantized coordinate
+     * @return the quantized distance
+     */
+    private static int distance(int a, int b) {
+        int distance = Math.abs(a - b);
+        return Math.min(distance, Protocol.QUANTIZED_MAX - distance);
+    }
+}
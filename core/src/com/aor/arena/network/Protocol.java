@@ -0,0 +1,236 @@
+package com.aor.arena.network;
+
+import com.aor.arena.controller.ShipInput;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * The messages exchanged by the arena server and its clients.
+ *
+ * Every message is framed by its length, as a 32-bit integer, followed
+ * by a type byte and the payload. Multi-byte values are big-endian.
+ *
+ * The server sends a WELCOME message with the handle of the ship of the
+ * client and the size of the arena once it connects and, after every
+ * step, a SHIP message with the exact state of that ship followed by a
+ * SNAPSHOT message, encoded by the delta codec. The client sends an
+ * INPUT message every step, holding its commands, numbered so the
+ * server can tell which one it applied last, and the last snapshot it
+ * received, which is the base of the next delta.
+ *
+ * Positions and rotations are quantized to 16 bits: about 1.5 mm in the
+ * default arena and 0.1 milliradians, which is finer than a pixel.
+ * Positions are fractions of the arena, so they are coarser in larger
+ * arenas: still 1.5 cm in one of 1000 meters.
+ */
+public final class Protocol {
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 7777;
+
+    /**
+     * The size of the header of a message: its length and type.
+     */
+    public static final int HEADER_SIZE = 5;
+
+    /**
+     * Welcome message type: u16 handle of the ship of the client, then
+     * the arena width and height as f32.
+     */
+    public static final byte WELCOME = 1;
+
+    /**
+     * Size of the payload of a welcome message.
+     */
+    public static final int WELCOME_SIZE = 10;
+
+    /**
+     * Snapshot message type: a delta encoded state.
+     */
+    public static final byte SNAPSHOT = 2;
+
+    /**
+     * Input message type: i32 acknowledged tick, i32 sequence number,
+     * u8 flags, i8 rotation.
+     */
+    public static final byte INPUT = 3;
+
+    /**
+     * Size of the payload of an input message.
+     */
+    public static final int INPUT_SIZE = 10;
+
+    /**
+     * Ship message type: i32 sequence number of the last input applied,
+     * then position, rotation, linear and angular velocity as f32.
+     */
+    public static final byte SHIP = 4;
+
+    /**
+     * Size of the payload of a ship message.
+     */
+    public static final int SHIP_SIZE = 28;
+
+    /**
+     * Input flag set while the ship accelerates.
+     */
+    public static final int INPUT_ACCELERATING = 0x01;
+
+    /**
+     * Input flag set while the ship shoots.
+     */
+    public static final int INPUT_SHOOTING = 0x02;
+
+    /**
+     * The largest message accepted, in bytes.
+     */
+    public static final int MAX_MESSAGE_SIZE = 1 << 20;
+
+    /**
+     * The largest quantized value.
+     */
+    static final int QUANTIZED_MAX = 0xFFFF;
+
+    /**
+     * A full turn in radians.
+     */
+    private static final float TURN = (float) (Math.PI * 2);
+
+    private Protocol() {
+    }
+
+    /**
+     * Quantizes a coordinate inside the arena, clamping values outside it.
+     *
+     * @param coordinate the coordinate in meters
+     * @param size the size of the arena along the coordinate, in meters
+     * @return the quantized coordinate
+     */
+    public static int quantize(float coordinate, float size) {
+        return Math.max(0, Math.min(QUANTIZED_MAX, Math.round(coordinate / size * QUANTIZED_MAX)));
+    }
+
+    /**
+     * Quantizes a rotation, of any number of turns.
+     *
+     * @param rotation the rotation in radians
+     * @return the quantized rotation
+     */
+    public static int quantizeRotation(float rotation) {
+        float turns = rotation / TURN;
+        return Math.round((turns - (float) Math.floor(turns)) * (QUANTIZED_MAX + 1)) & QUANTIZED_MAX;
+    }
+
+    /**
+     * Restores a quantized coordinate.
+     *
+     * @param coordinate the quantized coordinate
+     * @param size the size of the arena along the coordinate, in meters
+     * @return the coordinate in meters
+     */
+    public static float dequantize(int coordinate, float size) {
+        return (float) coordinate / QUANTIZED_MAX * size;
+    }
+
+    /**
+     * Restores a quantized rotation.
+     *
+     * @param rotation the quantized rotation
+     * @return the rotation in radians, between 0 and a full turn
+     */
+    public static float dequantizeRotation(int rotation) {
+        return (float) rotation / (QUANTIZED_MAX + 1) * TURN;
+    }
+
+    /**
+     * Quantizes how fast a ship should rotate to a signed byte, clamping
+     * it to the fastest rotation.
+     *
+     * @param rotation the rotation input, between -1 and 1
+     * @return the quantized rotation input
+     */
+    public static byte quantizeRotationInput(float rotation) {
+        return (byte) Math.round(Math.max(-1, Math.min(1, rotation)) * 127);
+    }
+
+    /**
+     * Restores a quantized rotation input.
+     *
+     * @param rotation the quantized rotation input
+     * @return the rotation input, between -1 and 1
+     */
+    public static float dequantizeRotationInput(int rotation) {
+        return rotation / 127f;
+    }
+
+    /**
+     * Rounds the commands of a ship to what the server applies after
+     * they are sent, so a client predicting its ship simulates exactly
+     * the commands the server will.
+     *
+     * @param input the commands, rounded in place
+     */
+    public static void quantizeInput(ShipInput input) {
+        input.setRotation(dequantizeRotationInput(quantizeRotationInput(input.getRotation())));
+    }
+
+    /**
+     * Starts a message, leaving room for its length.
+     *
+     * @param buffer the buffer the message is written to
+     * @param type the type of the message
+     * @return where the message starts, to be given to end
+     */
+    public static int begin(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        return start;
+    }
+
+    /**
+     * Ends a message, writing its length.
+     *
+     * @param buffer the buffer the message was written to
+     * @param start where the message starts, as returned by begin
+     */
+    public static void end(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    /**
+     * Writes an input message.
+     *
+     * @param buffer the buffer the message is written to
+     * @param ack the last snapshot received, or -1
+     * @param sequence the sequence number of the input
+     * @param rotation how fast the ship should rotate, positive to the left
+     * @param accelerating should the ship accelerate
+     * @param shooting should the ship shoot
+     */
+    public static void writeInput(ByteBuffer buffer, int ack, int sequence, float rotation, boolean accelerating, boolean shooting) {
+        int start = begin(buffer, INPUT);
+        buffer.putInt(ack);
+        buffer.putInt(sequence);
+        buffer.put((byte) ((accelerating ? INPUT_ACCELERATING : 0) | (shooting ? INPUT_SHOOTING : 0)));
+        buffer.put(quantizeRotationInput(rotation));
+        end(buffer, start);
+    }
+
+    /**
+     * Verifies if a buffer, ready to be read, holds a whole message.
+     *
+     * @param buffer the buffer
+     * @return the length of the message after its length field, or -1 if incomplete
+     * @throws ProtocolException if the length of the message is invalid
+     */
+    public static int available(ByteBuffer buffer) throws ProtocolException {
+        if (buffer.remaining() < 4) return -1;
+        int length = buffer.getInt(buffer.position());
+        if (length < 1 || length > MAX_MESSAGE_SIZE)
+            throw new ProtocolException("Invalid message length: " + length);
+        return buffer.remaining() - 4 >= length ? length : -1;
+    }
+}
@@ -0,0 +1,307 @@
+package com.aor.arena.network;
+
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.entities.EntityModel.ModelType;
+
+import java.util.Arrays;
+
+/**
+ * The state of every entity at the end of a step, with positions and
+ * rotations quantized as sent over the network. The server captures one
+ * after every step and encodes the differences between them, and each
+ * client decodes them back into one.
+ *
+ * Entities are kept in no particular order, so the server and its
+ * clients may index the same entity differently; handles, which only
+ * need 16 bits, identify entities across the network.
+ */
+public class QuantizedState implements EntityState {
+    /**
+     * The model types, indexed by ordinal.
+     */
+    private static final ModelType[] TYPES = ModelType.values();
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The step this state was captured after, or -1 if none.
+     */
+    private int tick = -1;
+
+    /**
+     * Number of entities in this state.
+     */
+    private int size;
+
+    /**
+     * The handle of each entity.
+     */
+    private int[] handles = new int[0];
+
+    /**
+     * The generation of the handle of each entity, truncated to 16 bits.
+     */
+    private int[] generations = new int[0];
+
+    /**
+     * The type ordinal of each entity.
+     */
+    private byte[] types = new byte[0];
+
+    /**
+     * The quantized x-coordinates.
+     */
+    private char[] x = new char[0];
+
+    /**
+     * The quantized y-coordinates.
+     */
+    private char[] y = new char[0];
+
+    /**
+     * The quantized rotations.
+     */
+    private char[] rotation = new char[0];
+
+    /**
+     * The index of the entity with each handle, or -1.
+     */
+    private int[] indexes = new int[0];
+
+    /**
+     * Creates an empty state of an arena.
+     *
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     */
+    public QuantizedState(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the arena width.
+     *
+     * @return the width in meters
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the arena height.
+     *
+     * @return the height in meters
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Quantizes the state of a game into this state, replacing its contents.
+     *
+     * @param state the state of every entity of the game
+     * @param tick the step the state was captured after
+     */
+    public void capture(EntityState state, int tick) {
+        clear(tick);
+        for (int i = 0; i < state.size(); i++) {
+            int handle = state.getHandle(i);
+            put(handle, state.getGeneration(handle), state.getType(i).ordinal(),
+                    Protocol.quantize(state.getX(i), width), Protocol.quantize(state.getY(i), height),
+                    Protocol.quantizeRotation(state.getRotation(i)));
+        }
+    }
+
+    /**
+     * Copies another state into this one, replacing its contents.
+     *
+     * @param other the state to copy
+     * @param tick the step this state will describe
+     */
+    public void set(QuantizedState other, int tick) {
+        clear(tick);
+        for (int i = 0; i < other.size; i++)
+            put(other.handles[i], other.generations[i], other.types[i], other.x[i], other.y[i], other.rotation[i]);
+    }
+
+    /**
+     * Removes every entity.
+     *
+     * @param tick the step this state will describe
+     */
+    void clear(int tick) {
+        for (int i = 0; i < size; i++)
+            indexes[handles[i]] = -1;
+        size = 0;
+        this.tick = tick;
+    }
+
+    /**
+     * Adds an entity, or replaces the entity with the same handle.
+     *
+     * @param handle the handle of the entity
+     * @param generation the generation of the handle
+     * @param type the type ordinal of the entity
+     * @param x the quantized x-coordinate
+     * @param y the quantized y-coordinate
+     * @param rotation the quantized rotation
+     * @return the index of the entity
+     */
+    int put(int handle, int generation, int type, int x, int y, int rotation) {
+        if (handle >= indexes.length) {
+            int old = indexes.length;
+            indexes = Arrays.copyOf(indexes, Math.max(handle + 1, old * 2));
+            Arrays.fill(indexes, old, indexes.length, -1);
+        }
+
+        int index = indexes[handle];
+        if (index == -1) {
+            if (size == handles.length) {
+                int capacity = Math.max(16, size * 2);
+                handles = Arrays.copyOf(handles, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                types = Arrays.copyOf(types, capacity);
+                this.x = Arrays.copyOf(this.x, capacity);
+                this.y = Arrays.copyOf(this.y, capacity);
+                this.rotation = Arrays.copyOf(this.rotation, capacity);
+            }
+            index = size++;
+            handles[index] = handle;
+            indexes[handle] = index;
+        }
+
+        generations[index] = generation & 0xFFFF;
+        types[index] = (byte) type;
+        this.x[index] = (char) x;
+        this.y[index] = (char) y;
+        this.rotation[index] = (char) rotation;
+        return index;
+    }
+
+    /**
+     * Removes the entity with a handle. The last entity takes its place.
+     *
+     * @param handle the handle of the entity
+     */
+    void remove(int handle) {
+        int index = indexOf(handle);
+        if (index == -1) return;
+
+        int last = --size;
+        if (index != last) {
+            handles[index] = handles[last];
+            generations[index] = generations[last];
+            types[index] = types[last];
+            x[index] = x[last];
+            y[index] = y[last];
+            rotation[index] = rotation[last];
+            indexes[handles[index]] = index;
+        }
+        indexes[handle] = -1;
+    }
+
+    /**
+     * Returns the step this state was captured after.
+     *
+     * @return the tick, or -1 if nothing was captured yet
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the quantized x-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the quantized x-coordinate
+     */
+    int getQuantizedX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Returns the quantized y-coordinate of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the quantized y-coordinate
+     */
+    int getQuantizedY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Returns the quantized rotation of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the quantized rotation
+     */
+    int getQuantizedRotation(int index) {
+        return rotation[index];
+    }
+
+    /**
+     * Returns the type ordinal of the entity at an index.
+     *
+     * @param index the index of the entity
+     * @return the type ordinal
+     */
+    int getTypeOrdinal(int index) {
+        return types[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(int handle) {
+        return handle < indexes.length ? indexes[handle] : -1;
+    }
+
+    @Override
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    /**
+     * Returns the generation of the handle of a living entity,
+     * truncated to 16 bits.
+     *
+     * @param handle the handle of the entity
+     * @return the generation of the handle
+     */
+    @Override
+    public int getGeneration(int handle) {
+        return generations[indexes[handle]];
+    }
+
+    @Override
+    public ModelType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    @Override
+    public float getX(int index) {
+        return Protocol.dequantize(x[index], width);
+    }
+
+    @Override
+    public float getY(int index) {
+        return Protocol.dequantize(y[index], height);
+    }
+
+    @Override
+    public float getRotation(int index) {
+        return Protocol.dequantizeRotation(rotation[index]);
+    }
+}
@@ -0,0 +1,258 @@
+package com.aor.arena.view;
+
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.entities.EntityModel;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+
+import static com.aor.arena.view.GameView.PIXEL_TO_METER;
+
+/**
+ * Draws every visible asteroid, of both sizes, with a single mesh.
+ *
+ * OpenGL ES 2.0 has no instancing, so the position and rotation of each
+ * asteroid are repeated in its four vertexes, next to the corner of the
+ * quad and its texture coordinates. The vertex shader rotates the corner
+ * around the position, so the CPU only copies the state of the asteroids
+ * from the entity store instead of computing the vertexes of each sprite.
+ *
+ * If there is no OpenGL context, as on the headless backend, or the
+ * shader can not be compiled, the renderer is not supported and
+ * asteroids should be drawn with the sprite batch instead.
+ */
+public class AsteroidRenderer {
+    /**
+     * Number of asteroids drawn by each draw call.
+     */
+    private static final int MAX_ASTEROIDS = 8191;
+
+    /**
+     * Number of floats in a vertex: position, corner, rotation and
+     * texture coordinates.
+     */
+    private static final int VERTEX_SIZE = 7;
+
+    /**
+     * Number of floats in an asteroid.
+     */
+    private static final int ASTEROID_SIZE = 4 * VERTEX_SIZE;
+
+    /**
+     * Rotates the corner of each vertex around its position.
+     */
+    private static final String VERTEX_SHADER =
+            "attribute vec2 a_position;\n" +
+            "attribute vec2 a_corner;\n" +
+            "attribute float a_rotation;\n" +
+            "attribute vec2 a_texCoord0;\n" +
+            "uniform mat4 u_projTrans;\n" +
+            "varying vec2 v_texCoords;\n" +
+            "void main() {\n" +
+            "    float c = cos(a_rotation);\n" +
+            "    float s = sin(a_rotation);\n" +
+            "    vec2 offset = vec2(c * a_corner.x - s * a_corner.y, s * a_corner.x + c * a_corner.y);\n" +
+            "    v_texCoords = a_texCoord0;\n" +
+            "    gl_Position = u_projTrans * vec4(a_position + offset, 0.0, 1.0);\n" +
+            "}\n";
+
+    /**
+     * Samples the atlas.
+     */
+    private static final String FRAGMENT_SHADER =
+            "#ifdef GL_ES\n" +
+            "precision mediump float;\n" +
+            "#endif\n" +
+            "varying vec2 v_texCoords;\n" +
+            "uniform sampler2D u_texture;\n" +
+            "void main() {\n" +
+            "    gl_FragColor = texture2D(u_texture, v_texCoords);\n" +
+            "}\n";
+
+    /**
+     * The region of big asteroids.
+     */
+    private final TextureRegion bigRegion;
+
+    /**
+     * The region of medium asteroids.
+     */
+    private final TextureRegion mediumRegion;
+
+    /**
+     * The shader rotating each asteroid, or null if there is no
+     * OpenGL context.
+     */
+    private ShaderProgram shader;
+
+    /**
+     * The mesh holding the asteroids of a draw call, or null if the
+     * shader could not be compiled.
+     */
+    private Mesh mesh;
+
+    /**
+     * The vertexes of the asteroids of a draw call.
+     */
+    private final float[] vertexes = new float[MAX_ASTEROIDS * ASTEROID_SIZE];
+
+    /**
+     * Creates a renderer for asteroids whose regions share a texture.
+     *
+     * @param bigRegion the region of big asteroids
+     * @param mediumRegion the region of medium asteroids
+     */
+    public AsteroidRenderer(TextureRegion bigRegion, TextureRegion mediumRegion) {
+        this.bigRegion = bigRegion;
+        this.mediumRegion = mediumRegion;
+
+        if (Gdx.gl == null) return;
+
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled()) {
+            Gdx.app.log("AsteroidRenderer", "Falling back to the sprite batch: " + shader.getLog());
+            return;
+        }
+
+        mesh = new Mesh(false, MAX_ASTEROIDS * 4, MAX_ASTEROIDS * 6,
+                new VertexAttribute(VertexAttributes.Usage.Position, 2, "a_position"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 2, "a_corner"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 1, "a_rotation"),
+                new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+        mesh.setIndices(createIndexes());
+    }
+
+    /**
+     * Returns if this renderer can be used.
+     *
+     * @return false if asteroids should be drawn with the sprite batch
+     */
+    public boolean isSupported() {
+        return mesh != null;
+    }
+
+    /**
+     * Draws the visible asteroids. Must not be called while the sprite
+     * batch is drawing.
+     *
+     * @param projection the projection matrix, in pixels
+     * @param store the state of every entity
+     * @param visibleSet the visible entities
+     */
+    public void draw(Matrix4 projection, EntityState store, VisibleSet visibleSet) {
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        bigRegion.getTexture().bind();
+        shader.begin();
+        shader.setUniformMatrix("u_projTrans", projection);
+        shader.setUniformi("u_texture", 0);
+
+        int count = 0;
+        for (int v = 0; v < visibleSet.size(); v++) {
+            int i = visibleSet.get(v);
+            EntityModel.ModelType type = store.getType(i);
+            if (type != EntityModel.ModelType.BIGASTEROID && type != EntityModel.ModelType.MEDIUMASTEROID)
+                continue;
+
+            pack(count++, visibleSet.wrapX(store.getX(i)), visibleSet.wrapY(store.getY(i)), store.getRotation(i),
+                    type == EntityModel.ModelType.BIGASTEROID ? bigRegion : mediumRegion);
+            if (count == MAX_ASTEROIDS) {
+                flush(count);
+                count = 0;
+            }
+        }
+        flush(count);
+
+        shader.end();
+    }
+
+    /**
+     * Writes the vertexes of an asteroid.
+     *
+     * @param asteroid the position of the asteroid in the draw call
+     * @param x the x-coordinate of the asteroid in meters
+     * @param y the y-coordinate of the asteroid in meters
+     * @param rotation the rotation of the asteroid in radians
+     * @param region the region of the asteroid
+     */
+    private void pack(int asteroid, float x, float y, float rotation, TextureRegion region) {
+        float px = x / PIXEL_TO_METER, py = y / PIXEL_TO_METER;
+        float halfWidth = region.getRegionWidth() / 2f, halfHeight = region.getRegionHeight() / 2f;
+
+        int offset = asteroid * ASTEROID_SIZE;
+        offset = vertex(offset, px, py, -halfWidth, -halfHeight, rotation, region.getU(), region.getV2());
+        offset = vertex(offset, px, py, -halfWidth, halfHeight, rotation, region.getU(), region.getV());
+        offset = vertex(offset, px, py, halfWidth, halfHeight, rotation, region.getU2(), region.getV());
+        vertex(offset, px, py, halfWidth, -halfHeight, rotation, region.getU2(), region.getV2());
+    }
+
+    /**
+     * Writes a vertex.
+     *
+     * @param offset where the vertex starts
+     * @param x the x-coordinate of the asteroid in pixels
+     * @param y the y-coordinate of the asteroid in pixels
+     * @param cornerX the x-offset of the corner in pixels
+     * @param cornerY the y-offset of the corner in pixels
+     * @param rotation the rotation of the asteroid in radians
+     * @param u the horizontal texture coordinate
+     * @param v the vertical texture coordinate
+     * @return where the next vertex starts
+     */
+    private int vertex(int offset, float x, float y, float cornerX, float cornerY, float rotation, float u, float v) {
+        vertexes[offset++] = x;
+        vertexes[offset++] = y;
+        vertexes[offset++] = cornerX;
+        vertexes[offset++] = cornerY;
+        vertexes[offset++] = rotation;
+        vertexes[offset++] = u;
+        vertexes[offset++] = v;
+        return offset;
+    }
+
+    /**
+     * Uploads the vertexes of a draw call and draws them.
+     *
+     * @param count number of asteroids
+     */
+    private void flush(int count) {
+        if (count == 0) return;
+        mesh.setVertices(vertexes, 0, count * ASTEROID_SIZE);
+        mesh.render(shader, GL20.GL_TRIANGLES, 0, count * 6);
+    }
+
+    /**
+     * Creates the indexes of two triangles per asteroid. They never
+     * change, so they are uploaded once.
+     *
+     * @return the indexes
+     */
+    private static short[] createIndexes() {
+        short[] indexes = new short[MAX_ASTEROIDS * 6];
+        for (int i = 0, vertex = 0; i < indexes.length; i += 6, vertex += 4) {
+            indexes[i] = (short) vertex;
+            indexes[i + 1] = (short) (vertex + 1);
+            indexes[i + 2] = (short) (vertex + 2);
+            indexes[i + 3] = (short) (vertex + 2);
+            indexes[i + 4] = (short) (vertex + 3);
+            indexes[i + 5] = (short) vertex;
+        }
+        return indexes;
+    }
+
+    /**
+     * Disposes of the shader and the mesh.
+     */
+    public void dispose() {
+        if (shader != null)
+            shader.dispose();
+        if (mesh != null)
+            mesh.dispose();
+    }
+}
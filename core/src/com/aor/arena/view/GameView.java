@@ -2,29 +2,32 @@ package com.aor.arena.view;
 
 import com.aor.arena.AsteroidArena;
 import com.aor.arena.controller.GameController;
-import com.aor.arena.model.entities.AsteroidModel;
-import com.aor.arena.model.GameModel;
-import com.aor.arena.model.entities.BulletModel;
-import com.aor.arena.model.entities.ShipModel;
+import com.aor.arena.controller.ShipInput;
+import com.aor.arena.controller.SimulationThread;
+import com.aor.arena.controller.StateBuffer;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.entities.EntityModel;
 import com.aor.arena.view.entities.BigAsteroidView;
 import com.aor.arena.view.entities.BulletView;
 import com.aor.arena.view.entities.EntityView;
+import com.aor.arena.view.entities.EntityViewStore;
 import com.aor.arena.view.entities.MediumAsteroidView;
 import com.aor.arena.view.entities.ShipView;
-import com.aor.arena.view.entities.ViewFactory;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
 
-import java.util.List;
-
-import static com.aor.arena.controller.GameController.ARENA_HEIGHT;
-import static com.aor.arena.controller.GameController.ARENA_WIDTH;
+import static com.aor.arena.model.entities.EntityModel.ModelType.BIGASTEROID;
+import static com.aor.arena.model.entities.EntityModel.ModelType.BULLET;
+import static com.aor.arena.model.entities.EntityModel.ModelType.MEDIUMASTEROID;
 
 /**
  * A view representing the game screen. Draws all the other views and
@@ -32,7 +35,9 @@ import static com.aor.arena.controller.GameController.ARENA_WIDTH;
  */
 public class GameView extends ScreenAdapter {
     /**
-     * Used to debug the position of the physics fixtures
+     * Used to debug the position of the physics fixtures. The physics
+     * world is read while the simulation thread steps it, so this is
+     * only good enough for debugging.
      */
     private static final boolean DEBUG_PHYSICS = false;
 
@@ -41,6 +46,12 @@ public class GameView extends ScreenAdapter {
      */
     public final static float PIXEL_TO_METER = 0.04f;
 
+    /**
+     * The texture atlas holding every sprite, packed at build time
+     * from android/assets-raw/sprites.
+     */
+    public final static String SPRITES_ATLAS = "sprites.atlas";
+
     /**
      * The width of the viewport in meters. The height is
      * automatically calculated using the screen ratio.
@@ -52,11 +63,51 @@ public class GameView extends ScreenAdapter {
      */
     private final AsteroidArena game;
 
+    /**
+     * The controller of the game being shown.
+     */
+    private final GameController controller;
+
     /**
      * The camera used to show the viewport.
      */
     private final OrthographicCamera camera;
 
+    /**
+     * The entities intersecting the camera rectangle.
+     */
+    private final VisibleSet visibleSet;
+
+    /**
+     * Draws the visible asteroids with a single mesh, when supported.
+     */
+    private final AsteroidRenderer asteroidRenderer;
+
+    /**
+     * The view of each entity.
+     */
+    private final EntityViewStore views;
+
+    /**
+     * Simulates the game on its own thread.
+     */
+    private final SimulationThread simulation;
+
+    /**
+     * The state of the game at the time being rendered.
+     */
+    private final InterpolatedState state;
+
+    /**
+     * The commands given to the spaceship, latched every frame.
+     */
+    private final ShipInput input = new ShipInput();
+
+    /**
+     * The handle of the spaceship, which never changes.
+     */
+    private final int shipHandle;
+
     /**
      * A renderer used to debug the physical fixtures.
      */
@@ -69,16 +120,30 @@ public class GameView extends ScreenAdapter {
     private Matrix4 debugCamera;
 
     /**
-     * Creates this screen.
+     * Creates this screen. Its assets must have been loaded.
      *
      * @param game The game this screen belongs to
+     * @param controller The controller of the game to be shown
+     * @see #queueAssets(AssetManager)
      */
-    public GameView(AsteroidArena game) {
+    public GameView(AsteroidArena game, GameController controller) {
         this.game = game;
+        this.controller = controller;
 
-        loadAssets();
+        ArenaConfig config = controller.getModel().getConfig();
+        visibleSet = new VisibleSet(config.getWidth(), config.getHeight());
+        state = new InterpolatedState(config.getWidth(), config.getHeight());
+
+        TextureAtlas atlas = game.getAssetManager().get(SPRITES_ATLAS);
+        asteroidRenderer = new AsteroidRenderer(atlas.findRegion("asteroid-big"), atlas.findRegion("asteroid-medium"));
+
+        views = new EntityViewStore(game);
+        shipHandle = controller.getModel().getShip().getHandle();
 
         camera = createCamera();
+
+        simulation = new SimulationThread(controller);
+        simulation.start();
     }
 
     /**
@@ -102,41 +167,39 @@ public class GameView extends ScreenAdapter {
     }
 
     /**
-     * Loads the assets needed by this screen.
+     * Queues the assets needed by this screen, to be loaded by the
+     * asset manager before the screen is created. Every sprite comes
+     * from a single atlas, so the entities are drawn without switching
+     * textures. The background repeats, so it keeps its own texture.
+     *
+     * @param assetManager the asset manager
      */
-    private void loadAssets() {
-        this.game.getAssetManager().load( "spaceship-no-thrust.png" , Texture.class);
-        this.game.getAssetManager().load( "spaceship-thrust.png" , Texture.class);
+    public static void queueAssets(AssetManager assetManager) {
+        assetManager.load( SPRITES_ATLAS , TextureAtlas.class);
 
-        this.game.getAssetManager().load( "asteroid-big.png" , Texture.class);
-        this.game.getAssetManager().load( "asteroid-medium.png" , Texture.class);
-
-        this.game.getAssetManager().load( "bullet.png" , Texture.class);
-
-        this.game.getAssetManager().load( "background.png" , Texture.class);
-
-        this.game.getAssetManager().load( "health-bar.png" , Texture.class);
-        this.game.getAssetManager().load( "controller-back.png" , Texture.class);
-        this.game.getAssetManager().load( "controller-knob.png" , Texture.class);
-
-        this.game.getAssetManager().finishLoading();
+        assetManager.load( "background.png" , Texture.class);
     }
 
     /**
-     * Renders this screen.
+     * Renders this screen. The game is drawn one step in the past,
+     * interpolated between the last two steps published by the
+     * simulation thread.
      *
      * @param delta time since last renders in seconds.
      */
     @Override
     public void render(float delta) {
-        GameController.getInstance().removeFlagged();
-        GameController.getInstance().createNewAsteroids();
+        simulation.checkFailure();
 
-        handleInputs(delta);
+        handleInputs();
 
-        GameController.getInstance().update(delta);
+        StateBuffer states = simulation.getStates();
+        if (!states.acquire())
+            return;
+        state.interpolate(states.getPrevious(), states.getLatest(), System.nanoTime() - SimulationThread.STEP_NANOS);
 
-        camera.position.set(GameModel.getInstance().getShip().getX() / PIXEL_TO_METER, GameModel.getInstance().getShip().getY() / PIXEL_TO_METER, 0);
+        int ship = state.indexOf(shipHandle);
+        camera.position.set(state.getX(ship) / PIXEL_TO_METER, state.getY(ship) / PIXEL_TO_METER, 0);
         camera.update();
         game.getBatch().setProjectionMatrix(camera.combined);
 
@@ -148,75 +211,151 @@ public class GameView extends ScreenAdapter {
         drawEntities();
         game.getBatch().end();
 
+        states.release();
+
         if (DEBUG_PHYSICS) {
             debugCamera = camera.combined.cpy();
             debugCamera.scl(1 / PIXEL_TO_METER);
-            debugRenderer.render(GameController.getInstance().getWorld(), debugCamera);
+            debugRenderer.render(controller.getWorld(), debugCamera);
         }
     }
 
     /**
-     * Handles any inputs and passes them to the controller.
-     *
-     * @param delta time since last time inputs where handled in seconds
+     * Handles any inputs and latches them in the simulation thread,
+     * which applies them on every simulation step until the next frame.
      */
-    private void handleInputs(float delta) {
+    private void handleInputs() {
+        input.clear();
+
         if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
-            GameController.getInstance().rotateLeft(delta);
+            input.rotateLeft(1);
         }
         if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
-            GameController.getInstance().rotateRight(delta);
+            input.rotateRight(1);
         }
         if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
-            GameController.getInstance().accelerate(delta);
+            input.setAccelerating(true);
         }
         if (Gdx.input.isKeyPressed(Input.Keys.SPACE)) {
-            GameController.getInstance().shoot();
+            input.setShooting(true);
         }
         if (Gdx.input.getGyroscopeX() > 0) {
-            GameController.getInstance().rotateRight(delta * Gdx.input.getGyroscopeX());
+            input.rotateRight(Gdx.input.getGyroscopeX());
         }
         if (Gdx.input.getGyroscopeX() < 0) {
-            GameController.getInstance().rotateLeft(delta * -Gdx.input.getGyroscopeX());
+            input.rotateLeft(-Gdx.input.getGyroscopeX());
         }
         if (Gdx.input.isTouched()) {
             if (Gdx.input.getX() < Gdx.graphics.getWidth() / 2)
-                GameController.getInstance().accelerate(delta);
+                input.setAccelerating(true);
             else
-                GameController.getInstance().shoot();
+                input.setShooting(true);
         }
+
+        simulation.setInput(input);
     }
 
     /**
-     * Draws the entities to the screen.
+     * Draws the entities to the screen. Only the asteroids and bullets
+     * intersecting the camera rectangle are drawn, asteroids first so
+     * that bullets are drawn on top of them. Asteroids are drawn by the
+     * asteroid renderer, outside of the sprite batch, unless it is not
+     * supported.
      */
     private void drawEntities() {
-        List<AsteroidModel> asteroids = GameModel.getInstance().getAsteroids();
-        for (AsteroidModel asteroid : asteroids) {
-            EntityView view = ViewFactory.makeView(game, asteroid);
-            view.update(asteroid);
-            view.draw(game.getBatch());
-        }
+        float halfWidth = camera.viewportWidth * camera.zoom / 2 * PIXEL_TO_METER;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2 * PIXEL_TO_METER;
+        float x = camera.position.x * PIXEL_TO_METER, y = camera.position.y * PIXEL_TO_METER;
+
+        visibleSet.update(state);
+        visibleSet.query(x - halfWidth, y - halfHeight, x + halfWidth, y + halfHeight);
+
+        if (asteroidRenderer.isSupported()) {
+            game.getBatch().end();
+            asteroidRenderer.draw(camera.combined, state, visibleSet);
+            game.getBatch().begin();
+        } else
+            drawEntities(state, BIGASTEROID, MEDIUMASTEROID);
+        drawEntities(state, BULLET, BULLET);
+
+        int ship = state.indexOf(shipHandle);
+        ShipView view = (ShipView) views.get(state, ship);
+        view.update(state.getX(ship), state.getY(ship), state.getRotation(ship));
+        view.setAccelerating(state.isShipAccelerating());
+        view.draw(game.getBatch());
+    }
 
-        List<BulletModel> bullets = GameModel.getInstance().getBullets();
-        for (BulletModel bullet : bullets) {
-            EntityView view = ViewFactory.makeView(game, bullet);
-            view.update(bullet);
+    /**
+     * Draws the visible entities of one or two types. Entities seen
+     * across an arena edge are drawn on the side of the camera.
+     *
+     * @param store the state of every entity
+     * @param first the first type to be drawn
+     * @param second the second type to be drawn
+     */
+    private void drawEntities(EntityState store, EntityModel.ModelType first, EntityModel.ModelType second) {
+        for (int v = 0; v < visibleSet.size(); v++) {
+            int i = visibleSet.get(v);
+            EntityModel.ModelType type = store.getType(i);
+            if (type != first && type != second)
+                continue;
+            EntityView view = views.get(store, i);
+            view.update(visibleSet.wrapX(store.getX(i)), visibleSet.wrapY(store.getY(i)), store.getRotation(i));
             view.draw(game.getBatch());
         }
+    }
 
-        ShipModel ship = GameModel.getInstance().getShip();
-        EntityView view = ViewFactory.makeView(game, ship);
-        view.update(ship);
-        view.draw(game.getBatch());
+    /**
+     * Pauses the simulation while the application is paused.
+     */
+    @Override
+    public void pause() {
+        simulation.setPaused(true);
     }
 
     /**
-     * Draws the background
+     * Resumes the simulation.
+     */
+    @Override
+    public void resume() {
+        simulation.setPaused(false);
+    }
+
+    /**
+     * Stops the simulation and disposes of the game shown by this screen.
+     * The simulation time dropped because the machine could not keep up
+     * is logged.
+     */
+    @Override
+    public void dispose() {
+        simulation.stop();
+        Gdx.app.log("GameView", "Dropped " + controller.getStepPolicy().getDroppedTime() + " s of simulation");
+        asteroidRenderer.dispose();
+        controller.dispose();
+    }
+
+    /**
+     * Draws the background. The arena wraps around, so the camera may
+     * see several copies of it. Only the part of each copy inside the
+     * camera rectangle is drawn.
      */
     private void drawBackground() {
         Texture background = game.getAssetManager().get("background.png", Texture.class);
         background.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
-        game.getBatch().draw(background, 0, 0, 0, 0, (int)(ARENA_WIDTH / PIXEL_TO_METER), (int) (ARENA_HEIGHT / PIXEL_TO_METER));
+
+        ArenaConfig config = controller.getModel().getConfig();
+        int width = (int) (config.getWidth() / PIXEL_TO_METER), height = (int) (config.getHeight() / PIXEL_TO_METER);
+        int left = (int) Math.floor(camera.position.x - camera.viewportWidth * camera.zoom / 2);
+        int right = (int) Math.ceil(camera.position.x + camera.viewportWidth * camera.zoom / 2);
+        int bottom = (int) Math.floor(camera.position.y - camera.viewportHeight * camera.zoom / 2);
+        int top = (int) Math.ceil(camera.position.y + camera.viewportHeight * camera.zoom / 2);
+
+        for (int copyX = (int) Math.floor((float) left / width); copyX * width < right; copyX++)
+            for (int copyY = (int) Math.floor((float) bottom / height); copyY * height < top; copyY++) {
+                int x0 = Math.max(left, copyX * width), x1 = Math.min(right, (copyX + 1) * width);
+                int y0 = Math.max(bottom, copyY * height), y1 = Math.min(top, (copyY + 1) * height);
+                int srcX = x0 - copyX * width, srcY = (copyY + 1) * height - y1;
+                game.getBatch().draw(background, x0, y0, srcX, srcY, x1 - x0, y1 - y0);
+            }
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.aor.arena.view;
+
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.StateFrame;
+import com.aor.arena.model.entities.EntityModel.ModelType;
+
+import static com.aor.arena.model.ArenaWrap.closest;
+import static com.aor.arena.model.ArenaWrap.wrap;
+
+/**
+ * The state of a game between two simulation steps, interpolated from
+ * the frames published after each of them, so entities move smoothly
+ * whatever the rate the screen is rendered at.
+ *
+ * Entities are taken from the newer frame. Those also present in the
+ * older frame, with the same handle generation, are moved back along
+ * the shortest path between both positions, which may cross an edge of
+ * the arena.
+ */
+public class InterpolatedState implements EntityState {
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The newer frame, which entities are taken from.
+     */
+    private StateFrame latest;
+
+    /**
+     * The interpolated x-coordinates in meters.
+     */
+    private float[] x = new float[0];
+
+    /**
+     * The interpolated y-coordinates in meters.
+     */
+    private float[] y = new float[0];
+
+    /**
+     * The interpolated rotations in radians.
+     */
+    private float[] rotation = new float[0];
+
+    /**
+     * Creates the interpolated state of an arena.
+     *
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     */
+    public InterpolatedState(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Interpolates between two frames. The frames must not change
+     * while this state is in use.
+     *
+     * @param previous the older frame
+     * @param latest the newer frame
+     * @param time the time to interpolate at, in nanoseconds
+     */
+    public void interpolate(StateFrame previous, StateFrame latest, long time) {
+        this.latest = latest;
+
+        long span = latest.getTime() - previous.getTime();
+        float alpha = span <= 0 ? 1 : Math.max(0, Math.min(1, (float) (time - previous.getTime()) / span));
+
+        int size = latest.size();
+        if (size > x.length) {
+            x = new float[Math.max(size, x.length * 2)];
+            y = new float[x.length];
+            rotation = new float[x.length];
+        }
+
+        for (int i = 0; i < size; i++) {
+            float x1 = latest.getX(i), y1 = latest.getY(i), rotation1 = latest.getRotation(i);
+
+            int handle = latest.getHandle(i);
+            int j = previous.indexOf(handle);
+            if (alpha < 1 && j != -1 && previous.getGeneration(handle) == latest.getGeneration(handle)) {
+                float x0 = previous.getX(j), y0 = previous.getY(j), rotation0 = previous.getRotation(j);
+                x1 = wrap(x0 + closest(x1 - x0, width) * alpha, width);
+                y1 = wrap(y0 + closest(y1 - y0, height) * alpha, height);
+                rotation1 = rotation0 + (rotation1 - rotation0) * alpha;
+            }
+
+            x[i] = x1;
+            y[i] = y1;
+            rotation[i] = rotation1;
+        }
+    }
+
+    /**
+     * Returns if the spaceship was accelerating during the newer step.
+     *
+     * @return true if the spaceship was accelerating
+     */
+    public boolean isShipAccelerating() {
+        return latest.isShipAccelerating();
+    }
+
+    @Override
+    public int size() {
+        return latest.size();
+    }
+
+    @Override
+    public int indexOf(int handle) {
+        return latest.indexOf(handle);
+    }
+
+    @Override
+    public int getHandle(int index) {
+        return latest.getHandle(index);
+    }
+
+    @Override
+    public int getGeneration(int handle) {
+        return latest.getGeneration(handle);
+    }
+
+    @Override
+    public ModelType getType(int index) {
+        return latest.getType(index);
+    }
+
+    @Override
+    public float getX(int index) {
+        return x[index];
+    }
+
+    @Override
+    public float getY(int index) {
+        return y[index];
+    }
+
+    @Override
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+}
@@ -0,0 +1,111 @@
+package com.aor.arena.view;
+
+import com.aor.arena.AsteroidArena;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A view shown while the assets of the game screen load. Assets are
+ * loaded a bit on every frame, so the first frame is shown right away
+ * and the progress is drawn while the rest loads.
+ *
+ * The asset manager decodes images on its own thread, so the only work
+ * done on the rendering thread is uploading them as textures.
+ */
+public class LoadingView extends ScreenAdapter {
+    /**
+     * How long each frame may spend loading assets in milliseconds.
+     */
+    private static final int LOADING_BUDGET = 15;
+
+    /**
+     * The width of the progress bar as a fraction of the screen width.
+     */
+    private static final float BAR_WIDTH = 0.6f;
+
+    /**
+     * The height of the progress bar in pixels.
+     */
+    private static final float BAR_HEIGHT = 16;
+
+    /**
+     * The game this screen belongs to.
+     */
+    private final AsteroidArena game;
+
+    /**
+     * Draws the progress bar, which needs no textures.
+     */
+    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+
+    /**
+     * When loading started in milliseconds.
+     */
+    private final long start;
+
+    /**
+     * Creates this screen and queues the assets of the game screen.
+     *
+     * @param game The game this screen belongs to
+     */
+    public LoadingView(AsteroidArena game) {
+        this.game = game;
+
+        GameView.queueAssets(game.getAssetManager());
+        start = TimeUtils.millis();
+    }
+
+    /**
+     * Loads assets for a while and draws the progress. Starts the game
+     * once every asset is loaded.
+     *
+     * @param delta time since last renders in seconds.
+     */
+    @Override
+    public void render(float delta) {
+        AssetManager assetManager = game.getAssetManager();
+        if (assetManager.update(LOADING_BUDGET)) {
+            Gdx.app.log("LoadingView", "Assets loaded in " + TimeUtils.timeSinceMillis(start) + " ms");
+            game.startGame();
+            dispose();
+            return;
+        }
+
+        Gdx.gl.glClearColor( 103/255f, 69/255f, 117/255f, 1 );
+        Gdx.gl.glClear( GL20.GL_COLOR_BUFFER_BIT );
+
+        float width = Gdx.graphics.getWidth() * BAR_WIDTH;
+        float x = (Gdx.graphics.getWidth() - width) / 2, y = (Gdx.graphics.getHeight() - BAR_HEIGHT) / 2;
+
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor( 60/255f, 40/255f, 70/255f, 1 );
+        shapeRenderer.rect(x, y, width, BAR_HEIGHT);
+        shapeRenderer.setColor(1, 1, 1, 1);
+        shapeRenderer.rect(x, y, width * assetManager.getProgress(), BAR_HEIGHT);
+        shapeRenderer.end();
+    }
+
+    /**
+     * Keeps the progress bar in screen coordinates.
+     *
+     * @param width the new screen width in pixels
+     * @param height the new screen height in pixels
+     */
+    @Override
+    public void resize(int width, int height) {
+        shapeRenderer.setProjectionMatrix(new Matrix4().setToOrtho2D(0, 0, width, height));
+    }
+
+    /**
+     * Disposes of the progress bar renderer.
+     */
+    @Override
+    public void dispose() {
+        shapeRenderer.dispose();
+    }
+}
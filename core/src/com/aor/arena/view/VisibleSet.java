@@ -0,0 +1,161 @@
+package com.aor.arena.view;
+
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.SpatialHash;
+import com.aor.arena.model.entities.EntityModel;
+import com.badlogic.gdx.utils.IntArray;
+
+import static com.aor.arena.model.ArenaWrap.closest;
+
+/**
+ * Finds the entities that intersect the camera rectangle, so that only
+ * those need to be drawn.
+ *
+ * Entities are indexed by their store index in a spatial hash rebuilt
+ * once per frame. The camera rectangle may extend past the arena edges,
+ * in which case the entities on the other side of those edges are found
+ * too, together with the offset they should be drawn at.
+ */
+public class VisibleSet {
+    /**
+     * The size of the spatial hash cells in meters.
+     */
+    private static final float CELL_SIZE = 5;
+
+    /**
+     * How much the rectangle is extended so that entities whose center is
+     * just outside of it, but whose sprite is not, are also found. Half
+     * the diagonal of the largest sprite, in meters.
+     */
+    private static final float MARGIN = 2.2f;
+
+    /**
+     * The arena width in meters.
+     */
+    private final float width;
+
+    /**
+     * The arena height in meters.
+     */
+    private final float height;
+
+    /**
+     * The entities of the current frame, indexed by store index.
+     */
+    private final SpatialHash hash;
+
+    /**
+     * The store indexes of the visible entities.
+     */
+    private final IntArray visible = new IntArray();
+
+    /**
+     * The state indexed in the last update.
+     */
+    private EntityState store;
+
+    /**
+     * The x-coordinate of the center of the last rectangle queried.
+     */
+    private float centerX;
+
+    /**
+     * The y-coordinate of the center of the last rectangle queried.
+     */
+    private float centerY;
+
+    /**
+     * Creates the visible set of an arena.
+     *
+     * @param width the arena width in meters
+     * @param height the arena height in meters
+     */
+    public VisibleSet(float width, float height) {
+        this.width = width;
+        this.height = height;
+        hash = new SpatialHash(width, height, CELL_SIZE);
+    }
+
+    /**
+     * Indexes every entity in the store except the ship, which is always visible.
+     *
+     * @param store the state of every entity
+     */
+    public void update(EntityState store) {
+        this.store = store;
+        hash.clear();
+        for (int i = 0; i < store.size(); i++)
+            if (store.getType(i) != EntityModel.ModelType.SHIP)
+                hash.insert(i, store.getX(i), store.getY(i), 0);
+    }
+
+    /**
+     * Finds the entities visible in a rectangle. The spatial hash returns
+     * whole cells, so entities found are then checked against the
+     * rectangle itself.
+     *
+     * @param minX the minimum x-coordinate of the rectangle in meters
+     * @param minY the minimum y-coordinate of the rectangle in meters
+     * @param maxX the maximum x-coordinate of the rectangle in meters
+     * @param maxY the maximum y-coordinate of the rectangle in meters
+     */
+    public void query(float minX, float minY, float maxX, float maxY) {
+        centerX = (minX + maxX) / 2;
+        centerY = (minY + maxY) / 2;
+
+        visible.clear();
+        hash.query(minX - MARGIN, minY - MARGIN, maxX + MARGIN, maxY + MARGIN, visible);
+
+        int count = 0;
+        for (int i = 0; i < visible.size; i++) {
+            int index = visible.get(i);
+            float x = wrapX(store.getX(index));
+            float y = wrapY(store.getY(index));
+            if (x >= minX - MARGIN && x <= maxX + MARGIN && y >= minY - MARGIN && y <= maxY + MARGIN)
+                visible.set(count++, index);
+        }
+        visible.size = count;
+    }
+
+    /**
+     * Returns the number of visible entities.
+     *
+     * @return the number of visible entities
+     */
+    public int size() {
+        return visible.size;
+    }
+
+    /**
+     * Returns the store index of a visible entity.
+     *
+     * @param i the position of the entity in this set
+     * @return the store index of the entity
+     */
+    public int get(int i) {
+        return visible.get(i);
+    }
+
+    /**
+     * Moves an x-coordinate to the copy of the arena closest to the
+     * center of the rectangle, so entities seen across an edge are
+     * drawn on the right side of it.
+     *
+     * @param x the x-coordinate in meters
+     * @return the x-coordinate to draw at
+     */
+    public float wrapX(float x) {
+        return x + closest(x - centerX, width) - (x - centerX);
+    }
+
+    /**
+     * Moves an y-coordinate to the copy of the arena closest to the
+     * center of the rectangle.
+     *
+     * @param y the y-coordinate in meters
+     * @return the y-coordinate to draw at
+     */
+    public float wrapY(float y) {
+        return y + closest(y - centerY, height) - (y - centerY);
+    }
+}
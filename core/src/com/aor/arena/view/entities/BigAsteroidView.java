@@ -1,7 +1,6 @@
 package com.aor.arena.view.entities;
 
 import com.aor.arena.AsteroidArena;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 
 /**
@@ -26,8 +25,6 @@ public class BigAsteroidView extends EntityView{
      * @return the sprite representing this asteroid
      */
     public Sprite createSprite(AsteroidArena game) {
-        Texture texture = game.getAssetManager().get("asteroid-big.png");
-
-        return new Sprite(texture, texture.getWidth(), texture.getHeight());
+        return new Sprite(findRegion(game, "asteroid-big"));
     }
 }
@@ -1,7 +1,6 @@
 package com.aor.arena.view.entities;
 
 import com.aor.arena.AsteroidArena;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 
 /**
@@ -26,8 +25,6 @@ public class BulletView extends EntityView{
      * @return the sprite representing this bullet
      */
     public Sprite createSprite(AsteroidArena game) {
-        Texture texture = game.getAssetManager().get("bullet.png");
-
-        return new Sprite(texture, texture.getWidth(), texture.getHeight());
+        return new Sprite(findRegion(game, "bullet"));
     }
 }
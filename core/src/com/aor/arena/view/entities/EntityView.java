@@ -4,8 +4,11 @@ import com.aor.arena.AsteroidArena;
 import com.aor.arena.model.entities.EntityModel;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 import static com.aor.arena.view.GameView.PIXEL_TO_METER;
+import static com.aor.arena.view.GameView.SPRITES_ATLAS;
 
 /**
  * A abstract view capable of holding a sprite with a certain
@@ -19,6 +22,21 @@ public abstract class EntityView {
      */
     Sprite sprite;
 
+    /**
+     * The x-coordinate the sprite was last placed at, in meters.
+     */
+    private float lastX = Float.NaN;
+
+    /**
+     * The y-coordinate the sprite was last placed at, in meters.
+     */
+    private float lastY = Float.NaN;
+
+    /**
+     * The rotation the sprite was last given, in radians.
+     */
+    private float lastRotation = Float.NaN;
+
     /**
      * Creates a view belonging to a game.
      *
@@ -49,13 +67,58 @@ public abstract class EntityView {
      */
     public abstract Sprite createSprite(AsteroidArena game);
 
+    /**
+     * Finds a region of the sprites atlas.
+     *
+     * @param game the game this view belongs to. Needed to access the
+     *             asset manager to get the atlas.
+     * @param name the name of the region, the name of the packed image
+     *             without extension
+     * @return the region
+     * @throws IllegalArgumentException if there is no such region
+     */
+    static TextureRegion findRegion(AsteroidArena game, String name) {
+        TextureAtlas atlas = game.getAssetManager().get(SPRITES_ATLAS);
+        TextureRegion region = atlas.findRegion(name);
+        if (region == null)
+            throw new IllegalArgumentException("No region " + name + " in " + SPRITES_ATLAS);
+        return region;
+    }
+
     /**
      * Updates this view based on a certain model.
      *
      * @param model the model used to update this view
      */
     public void update(EntityModel model) {
-        sprite.setCenter(model.getX() / PIXEL_TO_METER, model.getY() / PIXEL_TO_METER);
-        sprite.setRotation((float) Math.toDegrees(model.getRotation()));
+        update(model.getX(), model.getY(), model.getRotation());
+    }
+
+    /**
+     * Updates this view to a certain position and rotation. The sprite
+     * is only changed if they differ from the last ones, so entities
+     * that did not move keep their vertexes.
+     *
+     * @param x the x-coordinate in meters
+     * @param y the y-coordinate in meters
+     * @param rotation the rotation in radians
+     */
+    public void update(float x, float y, float rotation) {
+        if (x != lastX || y != lastY) {
+            sprite.setCenter(x / PIXEL_TO_METER, y / PIXEL_TO_METER);
+            lastX = x;
+            lastY = y;
+        }
+        if (rotation != lastRotation) {
+            sprite.setRotation((float) Math.toDegrees(rotation));
+            lastRotation = rotation;
+        }
+    }
+
+    /**
+     * Resets this view before it is given to another entity.
+     */
+    public void reset() {
+        lastX = lastY = lastRotation = Float.NaN;
     }
 }
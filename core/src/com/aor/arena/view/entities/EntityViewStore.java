@@ -0,0 +1,93 @@
+package com.aor.arena.view.entities;
+
+import com.aor.arena.AsteroidArena;
+import com.aor.arena.model.EntityState;
+import com.aor.arena.model.entities.EntityModel;
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a view for each entity, indexed by the handle of the entity
+ * in the entity store, so views can hold state of their own, such
+ * as the frame of an animation.
+ *
+ * A view is kept together with the generation of the handle it was
+ * given to. Once the handle is reused by another entity, the view is
+ * reset and given to it if it is of the same type, or pooled otherwise.
+ */
+public class EntityViewStore {
+    /**
+     * The game the views belong to.
+     */
+    private final AsteroidArena game;
+
+    /**
+     * The view of each entity, indexed by handle.
+     */
+    private EntityView[] views = new EntityView[128];
+
+    /**
+     * The generation of the handle each view was given to.
+     */
+    private int[] generations = new int[128];
+
+    /**
+     * The type of each view.
+     */
+    private EntityModel.ModelType[] types = new EntityModel.ModelType[128];
+
+    /**
+     * Views no longer in use, indexed by model type ordinal.
+     */
+    private final Array<Array<EntityView>> free = new Array<Array<EntityView>>();
+
+    /**
+     * Creates a store of views belonging to a game.
+     *
+     * @param game the game the views belong to
+     */
+    public EntityViewStore(AsteroidArena game) {
+        this.game = game;
+        for (int i = 0; i < EntityModel.ModelType.values().length; i++)
+            free.add(new Array<EntityView>(false, 16));
+    }
+
+    /**
+     * Returns the view of an entity, creating it if needed.
+     *
+     * @param store the state of every entity
+     * @param index the index of the entity
+     * @return the view of the entity
+     */
+    public EntityView get(EntityState store, int index) {
+        int handle = store.getHandle(index);
+        int generation = store.getGeneration(handle);
+        if (handle >= views.length) {
+            views = Arrays.copyOf(views, Math.max(handle + 1, views.length * 2));
+            generations = Arrays.copyOf(generations, views.length);
+            types = Arrays.copyOf(types, views.length);
+        }
+
+        EntityView view = views[handle];
+        if (view != null && generations[handle] == generation)
+            return view;
+
+        EntityModel.ModelType type = store.getType(index);
+        if (view != null && types[handle] != type) {
+            free.get(types[handle].ordinal()).add(view);
+            view = null;
+        }
+
+        if (view == null) {
+            Array<EntityView> pooled = free.get(type.ordinal());
+            view = pooled.size > 0 ? pooled.pop() : ViewFactory.makeView(game, type);
+        }
+
+        view.reset();
+        views[handle] = view;
+        generations[handle] = generation;
+        types[handle] = type;
+        return view;
+    }
+}
@@ -1,7 +1,6 @@
 package com.aor.arena.view.entities;
 
 import com.aor.arena.AsteroidArena;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 
 /**
@@ -27,8 +26,6 @@ public class MediumAsteroidView extends EntityView{
      * @return the sprite representing this asteroid
      */
     public Sprite createSprite(AsteroidArena game) {
-        Texture texture = game.getAssetManager().get("asteroid-medium.png");
-
-        return new Sprite(texture, texture.getWidth(), texture.getHeight());
+        return new Sprite(findRegion(game, "asteroid-medium"));
     }
 }
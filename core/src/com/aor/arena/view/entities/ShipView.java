@@ -4,7 +4,6 @@ import com.aor.arena.AsteroidArena;
 import com.aor.arena.model.entities.EntityModel;
 import com.aor.arena.model.entities.ShipModel;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -73,8 +72,7 @@ public class ShipView extends EntityView {
      * @return the texture used when the ship is not accelerating
      */
     private TextureRegion createNotAcceleratingRegion(AsteroidArena game) {
-        Texture noThrustTexture = game.getAssetManager().get("spaceship-no-thrust.png");
-        return new TextureRegion(noThrustTexture, noThrustTexture.getWidth(), noThrustTexture.getHeight());
+        return findRegion(game, "spaceship-no-thrust");
     }
 
     /**
@@ -85,8 +83,8 @@ public class ShipView extends EntityView {
      * @return the animation used when the ship is accelerating
      */
     private Animation<TextureRegion> createAcceleratingAnimation(AsteroidArena game) {
-        Texture thrustTexture = game.getAssetManager().get("spaceship-thrust.png");
-        TextureRegion[][] thrustRegion = TextureRegion.split(thrustTexture, thrustTexture.getWidth() / 4, thrustTexture.getHeight());
+        TextureRegion thrust = findRegion(game, "spaceship-thrust");
+        TextureRegion[][] thrustRegion = thrust.split(thrust.getRegionWidth() / 4, thrust.getRegionHeight());
 
         TextureRegion[] frames = new TextureRegion[4];
         System.arraycopy(thrustRegion[0], 0, frames, 0, 4);
@@ -108,6 +106,26 @@ public class ShipView extends EntityView {
         ((ShipModel)model).setAccelerating(false);
     }
 
+    /**
+     * Sets if the space ship is accelerating, for views updated from
+     * a position instead of a model.
+     *
+     * @param accelerating is the space ship accelerating
+     */
+    public void setAccelerating(boolean accelerating) {
+        this.accelerating = accelerating;
+    }
+
+    /**
+     * Resets this view, restarting its animation.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        stateTime = 0;
+        accelerating = false;
+    }
+
     /**
      * Draws the sprite from this view using a sprite batch.
      * Chooses the correct texture or animation to be used
@@ -3,33 +3,30 @@ package com.aor.arena.view.entities;
 import com.aor.arena.AsteroidArena;
 import com.aor.arena.model.entities.EntityModel;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import static com.aor.arena.model.entities.EntityModel.ModelType.BIGASTEROID;
-import static com.aor.arena.model.entities.EntityModel.ModelType.BULLET;
-import static com.aor.arena.model.entities.EntityModel.ModelType.MEDIUMASTEROID;
-import static com.aor.arena.model.entities.EntityModel.ModelType.SHIP;
-
 /**
- * A factory for EntityView objects with cache
+ * A factory for EntityView objects. Each entity gets its own view,
+ * kept by an EntityViewStore.
  */
 
 public class ViewFactory {
-    private static Map<EntityModel.ModelType, EntityView> cache =
-            new HashMap<EntityModel.ModelType, EntityView>();
-
-    public static EntityView makeView(AsteroidArena game, EntityModel model) {
-        if (!cache.containsKey(model.getType())) {
-            if (model.getType() == BIGASTEROID)
-                cache.put(model.getType(), new BigAsteroidView(game));
-            if (model.getType() == MEDIUMASTEROID)
-                cache.put(model.getType(), new MediumAsteroidView(game));
-            if (model.getType() == SHIP)
-                cache.put(model.getType(), new ShipView(game));
-            if (model.getType() == BULLET)
-                cache.put(model.getType(), new BulletView(game));
+    /**
+     * Creates a new view for entities of a certain type.
+     *
+     * @param game the game the view belongs to
+     * @param type the type of the entities
+     * @return the view
+     */
+    public static EntityView makeView(AsteroidArena game, EntityModel.ModelType type) {
+        switch (type) {
+            case BIGASTEROID:
+                return new BigAsteroidView(game);
+            case MEDIUMASTEROID:
+                return new MediumAsteroidView(game);
+            case SHIP:
+                return new ShipView(game);
+            case BULLET:
+                return new BulletView(game);
         }
-        return cache.get(model.getType());
+        throw new IllegalArgumentException("Unknown model type: " + type);
     }
 }
@@ -4,9 +4,25 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.aor.arena.AsteroidArena;
 
+/**
+ * Starts the game on the desktop.
+ *
+ * Usage: DesktopLauncher [--record FILE] [--config FILE]
+ *
+ * With --record, the input of the game is saved to FILE on exit. With
+ * --config, the arena is created from the ArenaConfig held, as JSON,
+ * by FILE.
+ */
 public class DesktopLauncher {
 	public static void main (String[] arg) {
+		String recordingPath = null, configPath = null;
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("--record")) recordingPath = arg[++i];
+			else if (arg[i].equals("--config")) configPath = arg[++i];
+			else throw new IllegalArgumentException("Unknown argument: " + arg[i]);
+		}
+
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
-		new LwjglApplication(new AsteroidArena(), config);
+		new LwjglApplication(new AsteroidArena(recordingPath, configPath), config);
 	}
 }
@@ -0,0 +1,127 @@
+package com.aor.arena.headless;
+
+import com.aor.arena.model.ArenaConfig;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * Runs arena simulations without a window or GL context and
+ * reports the simulation throughput.
+ *
+ * Usage: HeadlessLauncher [--runs N] [--ticks N] [--rate HZ] [--threads N] [--seed N] [--autopilot] [--lightweight-bullets]
+ *                         [--record FILE] [--replay FILE] [--config FILE] [--adaptive]
+ *                         [--check-allocations]
+ *
+ * A rate of zero (the default) simulates as fast as possible. With more
+ * than one thread, up to that many runs are simulated at the same time.
+ * With a seed, every run simulates the same game and reports the same
+ * final state. A replay plays the recorded input on the recorded game,
+ * with the recorded kind of bullets, ignoring the number of ticks, seed,
+ * autopilot and lightweight bullets, and fails unless the configuration
+ * is the one it was recorded with. A configuration
+ * file, holding an ArenaConfig as JSON, changes the simulated arena.
+ * In adaptive mode, each tick is a frame updating the game by the time
+ * since the previous one, and the simulation time dropped because steps
+ * took too long is reported. Checking allocations simulates a game
+ * with an idle ship for the given number of ticks, after warming up,
+ * and fails if those ticks allocated anything.
+ */
+public class HeadlessLauncher {
+	public static void main (String[] arg) throws Exception {
+		int runs = 1, ticks = 3600, rate = 0, threads = 1;
+		boolean autopilot = false, lightweightBullets = false, adaptive = false, checkAllocations = false;
+		Long seed = null;
+		String recordingPath = null, replayPath = null, configPath = null;
+
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("--runs")) runs = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--ticks")) ticks = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--rate")) rate = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--threads")) threads = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--seed")) seed = Long.parseLong(arg[++i]);
+			else if (arg[i].equals("--autopilot")) autopilot = true;
+			else if (arg[i].equals("--lightweight-bullets")) lightweightBullets = true;
+			else if (arg[i].equals("--record")) recordingPath = arg[++i];
+			else if (arg[i].equals("--replay")) replayPath = arg[++i];
+			else if (arg[i].equals("--config")) configPath = arg[++i];
+			else if (arg[i].equals("--adaptive")) adaptive = true;
+			else if (arg[i].equals("--check-allocations")) checkAllocations = true;
+			else throw new IllegalArgumentException("Unknown argument: " + arg[i]);
+		}
+
+		SimulationRunner runner = new SimulationRunner(ticks, rate, autopilot, lightweightBullets);
+		runner.setAdaptive(adaptive);
+		if (seed != null)
+			runner.setSeed(seed);
+		if (recordingPath != null)
+			runner.setRecordingPath(recordingPath);
+		if (replayPath != null)
+			runner.setReplay(readFile(replayPath));
+		if (configPath != null)
+			runner.setConfig(ArenaConfig.fromJson(new String(readFile(configPath), "UTF-8")));
+
+		if (checkAllocations) {
+			checkAllocations(runner, ticks);
+			return;
+		}
+
+		SimulationStats total = new SimulationStats();
+		long start = System.nanoTime();
+
+		if (threads > 1) {
+			List<SimulationStats> results = new ParallelRunner(runner, threads).run(runs);
+			for (int run = 1; run <= runs; run++) {
+				System.out.println("run " + run + ": " + results.get(run - 1));
+				total.merge(results.get(run - 1));
+			}
+		} else {
+			for (int run = 1; run <= runs; run++) {
+				SimulationStats stats = runner.run();
+				System.out.println("run " + run + ": " + stats);
+				total.merge(stats);
+			}
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (runs > 1)
+			System.out.println("total: " + total);
+		System.out.println(String.format("wall: %.2f s, %.1f ticks/s on %d thread(s)", seconds, total.getTicks() / seconds, threads));
+	}
+
+	/**
+	 * Verifies that the steps of a game in steady state allocate nothing.
+	 *
+	 * @param runner the runner simulating the game
+	 * @param ticks the number of ticks measured
+	 * @throws IllegalStateException if the ticks allocated memory, or the JVM cannot measure it
+	 */
+	private static void checkAllocations (SimulationRunner runner, int ticks) {
+		long bytes = runner.measureSteadyAllocations();
+		if (bytes < 0)
+			throw new IllegalStateException("This JVM cannot measure allocations");
+		if (bytes > 0)
+			throw new IllegalStateException(ticks + " ticks in steady state allocated " + bytes + " bytes");
+		System.out.println(ticks + " ticks in steady state allocated nothing");
+	}
+
+	/**
+	 * Reads a whole file.
+	 *
+	 * @param path the path of the file
+	 * @return the contents of the file
+	 * @throws IOException if the file could not be read
+	 */
+	private static byte[] readFile (String path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			file.readFully(bytes);
+			return bytes;
+		} finally {
+			file.close();
+		}
+	}
+}
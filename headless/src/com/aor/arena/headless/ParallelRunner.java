@@ -0,0 +1,67 @@
+package com.aor.arena.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates several arenas at the same time on a fixed pool of threads.
+ * Each run creates its own game model, controller and physics world, so
+ * runs share no state and a pool with one thread per core keeps every
+ * core busy.
+ */
+public class ParallelRunner {
+    /**
+     * The runner used to simulate each arena.
+     */
+    private final SimulationRunner runner;
+
+    /**
+     * Number of arenas simulated at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Creates a parallel runner.
+     *
+     * @param runner the runner used to simulate each arena
+     * @param threads number of arenas simulated at the same time
+     */
+    public ParallelRunner(SimulationRunner runner, int threads) {
+        this.runner = runner;
+        this.threads = threads;
+    }
+
+    /**
+     * Simulates a number of arenas and waits for all of them to finish.
+     *
+     * @param runs number of arenas to simulate
+     * @return the statistics of each run, in the order they were submitted
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a run failed
+     */
+    public List<SimulationStats> run(int runs) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SimulationStats>> futures = new ArrayList<Future<SimulationStats>>();
+            for (int run = 0; run < runs; run++)
+                futures.add(executor.submit(new Callable<SimulationStats>() {
+                    @Override
+                    public SimulationStats call() throws Exception {
+                        return runner.run();
+                    }
+                }));
+
+            List<SimulationStats> results = new ArrayList<SimulationStats>();
+            for (Future<SimulationStats> future : futures)
+                results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
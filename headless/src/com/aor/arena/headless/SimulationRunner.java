@@ -0,0 +1,347 @@
+package com.aor.arena.headless;
+
+import com.aor.arena.controller.GameController;
+import com.aor.arena.controller.InputRecorder;
+import com.aor.arena.controller.InputReplay;
+import com.aor.arena.controller.ShipInput;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.EntityStore;
+import com.aor.arena.model.GameModel;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Drives the game controller without a view. Each tick performs one
+ * fixed simulation step, exactly as GameView.render does on a frame
+ * that lasts one step, but without any rendering or GL context. In
+ * adaptive mode, each tick is instead a frame updating the controller
+ * by the time since the previous one.
+ *
+ * Every run simulates its own arena, so a runner can be used by
+ * several threads at the same time.
+ */
+public class SimulationRunner {
+    /**
+     * Number of ticks simulated before allocations are measured, so the
+     * arrays sized by the number of entities and contacts have grown.
+     */
+    private static final int WARMUP_TICKS = 600;
+
+    /**
+     * Number of ticks simulated by each run.
+     */
+    private final int ticks;
+
+    /**
+     * Ticks per second of wall time. Zero means as fast as possible.
+     */
+    private final int tickRate;
+
+    /**
+     * Should the ship be steered and fire while simulating.
+     */
+    private final boolean autopilot;
+
+    /**
+     * Should bullets be traced instead of simulated by Box2D.
+     */
+    private final boolean lightweightBullets;
+
+    /**
+     * Should each tick be a frame updating the controller by the time
+     * since the last one, instead of a single step.
+     */
+    private boolean adaptive;
+
+    /**
+     * The parameters of every simulated arena.
+     */
+    private ArenaConfig config = new ArenaConfig();
+
+    /**
+     * The seed of every simulated game, or null for random games.
+     */
+    private Long seed;
+
+    /**
+     * The input recording replayed by every run, or null.
+     */
+    private byte[] replay;
+
+    /**
+     * The file the input of each run is recorded to, or null.
+     */
+    private String recordingPath;
+
+    /**
+     * Creates a runner.
+     *
+     * @param ticks number of ticks simulated by each run
+     * @param tickRate ticks per second of wall time, or zero to run as fast as possible
+     * @param autopilot should the ship be steered and fire while simulating
+     * @param lightweightBullets should bullets be traced instead of simulated by Box2D
+     */
+    public SimulationRunner(int ticks, int tickRate, boolean autopilot, boolean lightweightBullets) {
+        this.ticks = ticks;
+        this.tickRate = tickRate;
+        this.autopilot = autopilot;
+        this.lightweightBullets = lightweightBullets;
+    }
+
+    /**
+     * Makes every run simulate an arena with certain parameters. A
+     * replay must be played in an arena with the parameters it was
+     * recorded in.
+     *
+     * @param config the parameters of the simulated arenas
+     */
+    public void setConfig(ArenaConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Makes each tick a frame that updates the controller by the wall
+     * time since the previous frame, as a game played in real time,
+     * so the step policy adapts the steps to how long they take and
+     * drops the time that can not be simulated. Replays still perform
+     * one step per tick.
+     *
+     * @param adaptive true to update the controller on each tick
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Makes every run simulate a game created from the same seed. As
+     * the autopilot is scripted, every run then ends in the same state.
+     *
+     * @param seed the seed of the simulated games
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Makes every run replay an input recording instead of simulating a
+     * fixed number of ticks. Each run plays the recorded game, created
+     * from the recorded seed and with the recorded kind of bullets, at
+     * full speed. The configured arena must have the parameters the
+     * input was recorded in, or the runs fail.
+     *
+     * @param replay the input recording
+     */
+    public void setReplay(byte[] replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * Records the input of each run into a file. When simulating more
+     * than one run, the file holds the last run to finish.
+     *
+     * @param recordingPath the file the input is recorded to
+     */
+    public void setRecordingPath(String recordingPath) {
+        this.recordingPath = recordingPath;
+    }
+
+    /**
+     * Simulates a brand new game for the configured number of ticks.
+     * The bytes allocated while simulating are also measured, so a
+     * run without autopilot, where no bodies are created or destroyed,
+     * shows the steady state allocation of a frame.
+     *
+     * @return the throughput statistics of this run
+     * @throws IOException if the input recording could not be written
+     * @throws IllegalArgumentException if the replayed input was recorded in an arena with other parameters
+     */
+    public SimulationStats run() throws IOException {
+        InputReplay inputReplay = replay == null ? null : new InputReplay(replay);
+        if (inputReplay != null)
+            inputReplay.checkConfig(config);
+
+        GameModel model;
+        if (inputReplay != null) model = new GameModel(config, inputReplay.getSeed());
+        else if (seed != null) model = new GameModel(config, seed);
+        else model = new GameModel(config);
+
+        GameController controller = new GameController(model);
+        controller.setLightweightBullets(inputReplay != null ? inputReplay.isLightweightBullets() : lightweightBullets);
+
+        InputRecorder recorder = null;
+        if (recordingPath != null) {
+            recorder = new InputRecorder(model.getSeed(), config, controller.isLightweightBullets());
+            controller.setInputRecorder(recorder);
+        }
+
+        try {
+            SimulationStats stats = simulate(controller, inputReplay);
+            if (recorder != null)
+                write(recorder.toBytes());
+            return stats;
+        } finally {
+            controller.dispose();
+        }
+    }
+
+    /**
+     * Measures the bytes allocated by the steps of a game in steady
+     * state. The ship is left alone, so no bullets are fired and no
+     * asteroids break, and the game is simulated for a while before
+     * measuring, so every byte allocated afterwards is allocated again
+     * on every step that does the same. Measuring allocates by itself,
+     * so what two measurements in a row allocate is not counted.
+     *
+     * @return the bytes allocated by the configured number of ticks, or -1 if the JVM cannot measure them
+     */
+    public long measureSteadyAllocations() {
+        GameModel model = seed != null ? new GameModel(config, seed) : new GameModel(config);
+        GameController controller = new GameController(model);
+        controller.setLightweightBullets(lightweightBullets);
+
+        try {
+            for (int tick = 0; tick < WARMUP_TICKS; tick++)
+                controller.step();
+
+            long measured = allocatedBytes();
+            long overhead = allocatedBytes() - measured;
+
+            long allocated = allocatedBytes();
+            for (int tick = 0; tick < ticks; tick++)
+                controller.step();
+            long allocatedAfter = allocatedBytes();
+
+            return allocated < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocated - overhead;
+        } finally {
+            controller.dispose();
+        }
+    }
+
+    /**
+     * Simulates an arena for the configured number of ticks, or until
+     * the end of a replay.
+     *
+     * @param controller the controller of the arena
+     * @param inputReplay the replay providing the input, or null
+     * @return the throughput statistics of this run
+     */
+    private SimulationStats simulate(GameController controller, InputReplay inputReplay) {
+        SimulationStats stats = new SimulationStats();
+
+        long period = tickRate > 0 ? 1000000000L / tickRate : 0;
+        long deadline = System.nanoTime();
+        long previous = deadline - (period > 0 ? period : (long) (GameController.STEP * 1e9));
+        long allocated = allocatedBytes();
+
+        for (int tick = 0; inputReplay != null || tick < ticks; tick++) {
+            long start = System.nanoTime();
+
+            if (inputReplay != null) {
+                if (!inputReplay.next(controller.getInput()))
+                    break;
+            } else if (autopilot)
+                steer(controller.getInput(), tick);
+
+            if (adaptive && inputReplay == null)
+                controller.update((start - previous) / 1e9f);
+            else
+                controller.step();
+            previous = start;
+
+            stats.record(System.nanoTime() - start);
+
+            if (period > 0) {
+                deadline += period;
+                sleepUntil(deadline);
+            }
+        }
+
+        long allocatedAfter = allocatedBytes();
+        stats.recordAllocations(allocated < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocated);
+        stats.recordSkippedFragments(controller.getSkippedFragments());
+        stats.recordDroppedTime(controller.getStepPolicy().getDroppedTime());
+        stats.setChecksum(checksum(controller.getModel().getStore()));
+
+        return stats;
+    }
+
+    /**
+     * Writes an input recording to the recording file.
+     *
+     * @param recording the input recording
+     * @throws IOException if the file could not be written
+     */
+    private synchronized void write(byte[] recording) throws IOException {
+        OutputStream out = new FileOutputStream(recordingPath);
+        try {
+            out.write(recording);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the bytes allocated on the heap by the current thread so far.
+     * Only available on JVMs that support thread allocation accounting.
+     *
+     * @return the allocated bytes, or -1 if unknown
+     */
+    private long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Hashes the type, position, rotation and time to live of every
+     * entity, so that the final states of two runs can be compared.
+     *
+     * @param store the store holding the state of every entity
+     * @return the checksum
+     */
+    private int checksum(EntityStore store) {
+        int hash = store.size();
+        for (int i = 0; i < store.size(); i++) {
+            hash = 31 * hash + store.getType(i).ordinal();
+            hash = 31 * hash + Float.floatToIntBits(store.getX(i));
+            hash = 31 * hash + Float.floatToIntBits(store.getY(i));
+            hash = 31 * hash + Float.floatToIntBits(store.getRotation(i));
+            hash = 31 * hash + Float.floatToIntBits(store.getTimeToLive(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Scripted input that keeps the ship turning, thrusting and shooting
+     * so that bullets and asteroid fragments are part of the workload.
+     *
+     * @param input the input of the ship
+     * @param tick the current tick
+     */
+    private void steer(ShipInput input, int tick) {
+        input.setRotation(1);
+        input.setAccelerating(tick % 120 < 30);
+        input.setShooting(true);
+    }
+
+    /**
+     * Sleeps until a certain instant.
+     *
+     * @param deadline the instant, as given by System.nanoTime
+     */
+    private void sleepUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0)
+            return;
+        try {
+            Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.aor.arena.headless;
+
+/**
+ * Throughput statistics collected while running a headless simulation.
+ */
+public class SimulationStats {
+    /**
+     * Number of ticks simulated.
+     */
+    private long ticks;
+
+    /**
+     * Total wall time spent simulating, in nanoseconds.
+     */
+    private long totalNanos;
+
+    /**
+     * Wall time of the fastest tick, in nanoseconds.
+     */
+    private long minNanos = Long.MAX_VALUE;
+
+    /**
+     * Wall time of the slowest tick, in nanoseconds.
+     */
+    private long maxNanos;
+
+    /**
+     * Bytes allocated on the heap by the simulating thread, or -1 if unknown.
+     */
+    private long allocatedBytes;
+
+    /**
+     * Checksum of the final state of the simulated game, or null if unknown.
+     */
+    private Integer checksum;
+
+    /**
+     * Number of asteroid fragments not created because of the budgets.
+     */
+    private long skippedFragments;
+
+    /**
+     * Simulation time dropped by the step policy, in seconds.
+     */
+    private double droppedTime;
+
+    /**
+     * Records the wall time of a single tick.
+     *
+     * @param nanos the wall time of the tick in nanoseconds
+     */
+    public void record(long nanos) {
+        ticks++;
+        totalNanos += nanos;
+        minNanos = Math.min(minNanos, nanos);
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Records the bytes allocated on the heap while simulating.
+     *
+     * @param bytes the allocated bytes, or -1 if the JVM cannot measure them
+     */
+    public void recordAllocations(long bytes) {
+        allocatedBytes = bytes < 0 || allocatedBytes < 0 ? -1 : allocatedBytes + bytes;
+    }
+
+    /**
+     * Records the checksum of the final state of the simulated game.
+     *
+     * @param checksum the checksum
+     */
+    public void setChecksum(int checksum) {
+        this.checksum = checksum;
+    }
+
+    /**
+     * Records the asteroid fragments not created because of the budgets.
+     *
+     * @param fragments the number of fragments
+     */
+    public void recordSkippedFragments(long fragments) {
+        skippedFragments += fragments;
+    }
+
+    /**
+     * Records the simulation time dropped because it could not be
+     * simulated in real time.
+     *
+     * @param seconds the dropped time in seconds
+     */
+    public void recordDroppedTime(double seconds) {
+        droppedTime += seconds;
+    }
+
+    /**
+     * Adds all ticks recorded by another set of statistics to this one.
+     *
+     * @param other the statistics to be added
+     */
+    public void merge(SimulationStats other) {
+        ticks += other.ticks;
+        totalNanos += other.totalNanos;
+        minNanos = Math.min(minNanos, other.minNanos);
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+        recordAllocations(other.allocatedBytes);
+        skippedFragments += other.skippedFragments;
+        droppedTime += other.droppedTime;
+    }
+
+    /**
+     * Returns the number of ticks simulated.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of ticks simulated per second of wall time
+     * spent inside the simulation.
+     *
+     * @return the ticks per second
+     */
+    public double getTicksPerSecond() {
+        return totalNanos == 0 ? 0 : ticks * 1e9 / totalNanos;
+    }
+
+    /**
+     * Returns the mean wall time per tick.
+     *
+     * @return the mean wall time per tick in microseconds
+     */
+    public double getMeanMicros() {
+        return ticks == 0 ? 0 : totalNanos / 1e3 / ticks;
+    }
+
+    /**
+     * Returns the wall time of the fastest tick.
+     *
+     * @return the wall time in microseconds
+     */
+    public double getMinMicros() {
+        return ticks == 0 ? 0 : minNanos / 1e3;
+    }
+
+    /**
+     * Returns the wall time of the slowest tick.
+     *
+     * @return the wall time in microseconds
+     */
+    public double getMaxMicros() {
+        return maxNanos / 1e3;
+    }
+
+    /**
+     * Returns the mean number of bytes allocated on the heap per tick.
+     *
+     * @return the allocated bytes per tick, or -1 if unknown
+     */
+    public double getAllocatedBytesPerTick() {
+        if (allocatedBytes < 0) return -1;
+        return ticks == 0 ? 0 : (double) allocatedBytes / ticks;
+    }
+
+    @Override
+    public String toString() {
+        String result = String.format("%d ticks, %.1f ticks/s, %.1f us/tick (min %.1f us, max %.1f us), %.1f bytes/tick allocated",
+                ticks, getTicksPerSecond(), getMeanMicros(), getMinMicros(), getMaxMicros(), getAllocatedBytesPerTick());
+        if (skippedFragments > 0)
+            result += String.format(", %d fragments skipped", skippedFragments);
+        if (droppedTime > 0)
+            result += String.format(", %.2f s dropped", droppedTime);
+        return checksum == null ? result : result + String.format(", state %08x", checksum);
+    }
+}
@@ -0,0 +1,551 @@
+package com.aor.arena.server;
+
+import com.aor.arena.controller.GameController;
+import com.aor.arena.controller.ShipInput;
+import com.aor.arena.controller.SimulationThread;
+import com.aor.arena.controller.entities.EntityBody;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.entities.ShipModel;
+import com.aor.arena.network.ClientState;
+import com.aor.arena.network.DeltaCodec;
+import com.aor.arena.network.EntitySelection;
+import com.aor.arena.network.InterestFilter;
+import com.aor.arena.network.Protocol;
+import com.aor.arena.network.QuantizedState;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Runs an arena for every client connected to it. The server owns the
+ * only simulation of the arena: clients send their commands, which are
+ * applied to their ship by the next step, and receive the state of
+ * every entity after each step.
+ *
+ * Clients number their inputs and the server applies one per step,
+ * queueing those that arrive early and repeating the last one when
+ * the next is late. After each step, each client is told which of its
+ * inputs was applied last and the exact state of its ship, to correct
+ * its own prediction of the ship.
+ *
+ * Everything happens on the thread running the server: sockets are
+ * non-blocking and served by a selector between steps, so a slow
+ * client never delays the others.
+ *
+ * Snapshots are quantized and, if the server has an interest filter,
+ * each client only receives the entities near its ship. They are then
+ * encoded against the last snapshot the client acknowledged, which the
+ * server keeps for HISTORY steps. A client whose socket has not sent
+ * the previous snapshot yet skips the next ones, so each client has at
+ * most one snapshot queued and its next delta, against an older base,
+ * covers the skipped steps.
+ */
+public class ArenaServer {
+    /**
+     * How far behind the server may fall before it stops trying to
+     * catch up, in nanoseconds.
+     */
+    private static final long MAX_DELAY = 250000000L;
+
+    /**
+     * Number of inputs a client can have queued. Older inputs are
+     * dropped when a client sends them faster than they are applied.
+     */
+    private static final int MAX_QUEUED_INPUTS = 8;
+
+    /**
+     * The controller of the arena.
+     */
+    private final GameController controller;
+
+    /**
+     * Chooses where ships appear.
+     */
+    private final RandomXS128 random;
+
+    /**
+     * Serves every socket.
+     */
+    private final Selector selector;
+
+    /**
+     * Accepts new clients.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Every connected client.
+     */
+    private final Array<Client> clients = new Array<Client>();
+
+    /**
+     * The last snapshots captured, indexed by tick modulo HISTORY.
+     */
+    private final QuantizedState[] history = new QuantizedState[ClientState.HISTORY];
+
+    /**
+     * Selects the entities sent to each client, or null to send every entity.
+     */
+    private InterestFilter interest;
+
+    /**
+     * Where snapshots are encoded, ready to be written to.
+     */
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Number of steps simulated.
+     */
+    private int tick;
+
+    /**
+     * What the server measured.
+     */
+    private final ServerStats stats = new ServerStats();
+
+    /**
+     * A connected client.
+     */
+    private static class Client {
+        /**
+         * The socket of the client.
+         */
+        final Connection connection;
+
+        /**
+         * The ship of the client.
+         */
+        final ShipModel ship;
+
+        /**
+         * The last snapshot acknowledged by the client, or -1.
+         */
+        int ack = -1;
+
+        /**
+         * The inputs received but not applied yet, in order: sequence
+         * number, flags and rotation of each.
+         */
+        final int[] queue = new int[MAX_QUEUED_INPUTS * 3];
+
+        /**
+         * Where the oldest queued input starts in the queue.
+         */
+        int queueStart;
+
+        /**
+         * Number of queued inputs.
+         */
+        int queueSize;
+
+        /**
+         * The sequence number of the last input received, or -1.
+         */
+        int lastReceived = -1;
+
+        /**
+         * The sequence number of the last input applied, or -1.
+         */
+        int lastApplied = -1;
+
+        /**
+         * The entities selected for the client by the interest filter
+         * from the last snapshots, indexed by tick modulo HISTORY, or null.
+         */
+        EntitySelection[] views;
+
+        /**
+         * Creates a client.
+         *
+         * @param connection the socket of the client
+         * @param ship the ship of the client
+         */
+        Client(Connection connection, ShipModel ship) {
+            this.connection = connection;
+            this.ship = ship;
+        }
+    }
+
+    /**
+     * Creates a server for an arena, listening on a port.
+     *
+     * @param controller the controller of the arena
+     * @param port the port, or 0 for any free port
+     * @throws IOException if the port could not be bound
+     * @throws IllegalArgumentException if the arena can have more entities than snapshots can address
+     */
+    public ArenaServer(GameController controller, int port) throws IOException {
+        ArenaConfig config = controller.getModel().getConfig();
+        if (config.getMaxEntities() > DeltaCodec.MAX_VALUE)
+            throw new IllegalArgumentException("An arena served over the network can have at most " + DeltaCodec.MAX_VALUE + " entities");
+
+        this.controller = controller;
+        this.random = new RandomXS128(controller.getModel().getSeed());
+
+        for (int i = 0; i < history.length; i++)
+            history[i] = new QuantizedState(config.getWidth(), config.getHeight());
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.socket().bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Makes each client receive only the entities selected for it by an
+     * interest filter.
+     *
+     * @param interest the interest filter, or null to send every entity to every client
+     */
+    public void setInterestFilter(InterestFilter interest) {
+        this.interest = interest;
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return the number of clients
+     */
+    public int getClientCount() {
+        return clients.size;
+    }
+
+    /**
+     * Returns what the server measured.
+     *
+     * @return the statistics of the server
+     */
+    public ServerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Simulates the arena, one step every STEP seconds, serving the
+     * clients in between.
+     *
+     * @param ticks number of steps to simulate, or zero to run until interrupted
+     * @throws IOException if the selector failed
+     */
+    public void run(int ticks) throws IOException {
+        long next = System.nanoTime();
+        for (int i = 0; (ticks <= 0 || i < ticks) && !Thread.currentThread().isInterrupted(); i++) {
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) {
+                selector.select(Math.max(1, wait / 1000000));
+                serve();
+            }
+
+            tick();
+
+            next += SimulationThread.STEP_NANOS;
+            if (System.nanoTime() - next > MAX_DELAY)
+                next = System.nanoTime();
+        }
+    }
+
+    /**
+     * Serves the clients, simulates a step and sends its snapshot. A
+     * client whose snapshot can not be sent or encoded is disconnected.
+     *
+     * @throws IOException if the selector failed
+     */
+    public void tick() throws IOException {
+        long start = System.nanoTime();
+        selector.selectNow();
+        serve();
+
+        long step = System.nanoTime();
+        for (int i = 0; i < clients.size; i++)
+            applyInput(clients.get(i));
+        controller.step();
+        tick++;
+
+        long send = System.nanoTime();
+        QuantizedState current = history[tick & (ClientState.HISTORY - 1)];
+        current.capture(controller.getModel().getStore(), tick);
+        if (interest != null)
+            interest.update(current);
+
+        long bytes = 0;
+        int skipped = 0;
+        for (int i = clients.size - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (client.connection.hasPending()) {
+                skipped++;
+                continue;
+            }
+            long sent = client.connection.getBytesSent();
+            try {
+                client.connection.send(encode(client, current, select(client, current)));
+            } catch (IOException e) {
+                disconnect(client);
+                continue;
+            } catch (IllegalStateException e) {
+                disconnect(client);
+                continue;
+            }
+            bytes += client.connection.getBytesSent() - sent;
+        }
+
+        long end = System.nanoTime();
+        stats.record(step - start + end - send, send - step, clients.size, skipped, bytes);
+    }
+
+    /**
+     * Selects the entities of the last snapshot sent to a client.
+     *
+     * @param client the client
+     * @param current the snapshot of the last step
+     * @return the entities of the client, or null for every entity
+     */
+    private EntitySelection select(Client client, QuantizedState current) {
+        if (interest == null) return null;
+
+        if (client.views == null) {
+            client.views = new EntitySelection[ClientState.HISTORY];
+            for (int i = 0; i < client.views.length; i++)
+                client.views[i] = new EntitySelection();
+        }
+
+        EntitySelection view = client.views[tick & (ClientState.HISTORY - 1)];
+        int ship = current.indexOf(client.ship.getHandle());
+        interest.select(current, current.getX(ship), current.getY(ship), view);
+        return view;
+    }
+
+    /**
+     * Encodes the snapshot of a client against the last one it
+     * acknowledged, if still kept, or against nothing.
+     *
+     * @param client the client
+     * @param current the snapshot of the last step
+     * @param selection the entities of the client, or null for every entity
+     * @return the encoded snapshot, ready to be read
+     */
+    private ByteBuffer encode(Client client, QuantizedState current, EntitySelection selection) {
+        QuantizedState base = null;
+        EntitySelection baseSelection = null;
+        if (client.ack >= 0 && tick - client.ack < ClientState.HISTORY) {
+            int slot = client.ack & (ClientState.HISTORY - 1);
+            base = history[slot];
+            if (selection != null)
+                baseSelection = client.views[slot];
+            if (base.getTick() != client.ack || selection != null && baseSelection.getTick() != client.ack) {
+                base = null;
+                baseSelection = null;
+            }
+        }
+
+        while (true) {
+            scratch.clear();
+            try {
+                writeShip(client);
+                DeltaCodec.encode(scratch, base, baseSelection, current, selection);
+                scratch.flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Writes the state of the ship of a client after the last step.
+     *
+     * @param client the client
+     */
+    private void writeShip(Client client) {
+        EntityBody body = controller.getShipBody(client.ship);
+        Vector2 velocity = body.getLinearVelocity();
+
+        int start = Protocol.begin(scratch, Protocol.SHIP);
+        scratch.putInt(client.lastApplied);
+        scratch.putFloat(body.getX());
+        scratch.putFloat(body.getY());
+        scratch.putFloat(body.getAngle());
+        scratch.putFloat(velocity.x);
+        scratch.putFloat(velocity.y);
+        scratch.putFloat(body.getAngularVelocity());
+        Protocol.end(scratch, start);
+    }
+
+    /**
+     * Applies the next queued input of a client to its ship. If there
+     * is none, the ship keeps the last one.
+     *
+     * @param client the client
+     */
+    private void applyInput(Client client) {
+        if (client.queueSize == 0) return;
+
+        int offset = client.queueStart * 3;
+        client.lastApplied = client.queue[offset];
+        int flags = client.queue[offset + 1];
+
+        ShipInput input = controller.getInput(client.ship);
+        input.setRotation(Protocol.dequantizeRotationInput(client.queue[offset + 2]));
+        input.setAccelerating((flags & Protocol.INPUT_ACCELERATING) != 0);
+        input.setShooting((flags & Protocol.INPUT_SHOOTING) != 0);
+
+        client.queueStart = (client.queueStart + 1) % MAX_QUEUED_INPUTS;
+        client.queueSize--;
+    }
+
+    /**
+     * Accepts new clients and reads the messages of the others.
+     */
+    private void serve() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isWritable())
+                    client.connection.flush();
+                if (key.isReadable())
+                    read(client);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    /**
+     * Accepts a client, giving it a ship at a random position. A client
+     * is refused, by closing its socket, if there is no room for its
+     * ship in the entity budget.
+     */
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) return;
+
+            ArenaConfig config = controller.getModel().getConfig();
+            ShipModel ship = controller.addShip(random.nextFloat() * config.getWidth(), random.nextFloat() * config.getHeight());
+            if (ship == null) {
+                channel.close();
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            Connection connection = new Connection(channel, channel.register(selector, SelectionKey.OP_READ));
+            Client client = new Client(connection, ship);
+            connection.key.attach(client);
+            clients.add(client);
+
+            ByteBuffer welcome = ByteBuffer.allocate(Protocol.HEADER_SIZE + Protocol.WELCOME_SIZE);
+            int start = Protocol.begin(welcome, Protocol.WELCOME);
+            welcome.putShort((short) client.ship.getHandle());
+            welcome.putFloat(config.getWidth());
+            welcome.putFloat(config.getHeight());
+            Protocol.end(welcome, start);
+            welcome.flip();
+            try {
+                connection.send(welcome);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the messages of a client.
+     *
+     * @param client the client
+     * @throws IOException if the socket failed or a message is invalid
+     */
+    private void read(Client client) throws IOException {
+        if (!client.connection.receive()) {
+            disconnect(client);
+            return;
+        }
+
+        ByteBuffer message;
+        while ((message = client.connection.next()) != null) {
+            if (message.get() != Protocol.INPUT || message.remaining() != Protocol.INPUT_SIZE)
+                throw new ProtocolException("Unexpected message from client");
+
+            int ack = message.getInt();
+            int sequence = message.getInt();
+            int flags = message.get();
+            int rotation = message.get();
+
+            if (ack <= tick && ack > client.ack)
+                client.ack = ack;
+            if (sequence <= client.lastReceived)
+                continue;
+            client.lastReceived = sequence;
+
+            if (client.queueSize == MAX_QUEUED_INPUTS) {
+                client.queueStart = (client.queueStart + 1) % MAX_QUEUED_INPUTS;
+                client.queueSize--;
+            }
+            int offset = (client.queueStart + client.queueSize++) % MAX_QUEUED_INPUTS * 3;
+            client.queue[offset] = sequence;
+            client.queue[offset + 1] = flags;
+            client.queue[offset + 2] = rotation;
+        }
+    }
+
+    /**
+     * Disconnects a client, removing its ship.
+     *
+     * @param client the client
+     */
+    private void disconnect(Client client) {
+        if (!clients.removeValue(client, true)) return;
+        client.connection.close();
+        controller.removeShip(client.ship);
+    }
+
+    /**
+     * Disconnects every client and stops listening.
+     */
+    public void close() {
+        while (clients.size > 0)
+            disconnect(clients.peek());
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
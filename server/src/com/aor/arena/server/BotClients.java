@@ -0,0 +1,534 @@
+package com.aor.arena.server;
+
+import com.aor.arena.controller.ShipInput;
+import com.aor.arena.controller.ShipPredictor;
+import com.aor.arena.controller.SimulationThread;
+import com.aor.arena.network.ClientState;
+import com.aor.arena.network.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Clients flying scripted ships in an arena server, all served by one
+ * thread, to load the server without any real players. Each client
+ * decodes every snapshot it receives and, every step of its own clock,
+ * sends its commands and an acknowledgement of the last snapshot, as a
+ * game client would.
+ *
+ * The clients can also predict their ships and reconcile them with the
+ * states sent by the server, and can delay every message they send and
+ * receive, to measure how often predictions are corrected over a slow
+ * network. Delayed messages keep their order, as they would over TCP.
+ */
+public class BotClients implements Runnable {
+    /**
+     * The clients.
+     */
+    private final Bot[] bots;
+
+    /**
+     * Serves the sockets of every client.
+     */
+    private final Selector selector;
+
+    /**
+     * Where inputs are written.
+     */
+    private final ByteBuffer output = ByteBuffer.allocate(Protocol.HEADER_SIZE + Protocol.INPUT_SIZE);
+
+    /**
+     * The commands given to a ship.
+     */
+    private final ShipInput input = new ShipInput();
+
+    /**
+     * Chooses the delay of each message.
+     */
+    private final Random random = new Random(42);
+
+    /**
+     * The minimum delay of each message in nanoseconds, in each direction.
+     */
+    private long latency;
+
+    /**
+     * The maximum delay added to the latency in nanoseconds.
+     */
+    private long jitter;
+
+    /**
+     * Should the clients predict their ships.
+     */
+    private boolean prediction;
+
+    /**
+     * The thread serving the clients, or null if not started.
+     */
+    private Thread thread;
+
+    /**
+     * Were the clients stopped.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * What stopped the clients because of an error, or null.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * A message held back to simulate a slow network.
+     */
+    private static class Delayed {
+        /**
+         * When the message is delivered, in nanoseconds.
+         */
+        final long due;
+
+        /**
+         * The message, with its length.
+         */
+        final ByteBuffer message;
+
+        /**
+         * Creates a delayed message.
+         *
+         * @param due when the message is delivered, in nanoseconds
+         * @param message the message, with its length, ready to be read
+         */
+        Delayed(long due, ByteBuffer message) {
+            this.due = due;
+            this.message = message;
+        }
+    }
+
+    /**
+     * A scripted client.
+     */
+    private static class Bot {
+        /**
+         * The socket of the client.
+         */
+        final Connection connection;
+
+        /**
+         * The number of the client.
+         */
+        final int id;
+
+        /**
+         * The snapshots received, or null until welcomed.
+         */
+        ClientState state;
+
+        /**
+         * The messages received, waiting to be read.
+         */
+        final ArrayDeque<Delayed> incoming = new ArrayDeque<Delayed>();
+
+        /**
+         * The messages sent, waiting to be written.
+         */
+        final ArrayDeque<Delayed> outgoing = new ArrayDeque<Delayed>();
+
+        /**
+         * When each input kept by the predictor was sent, in nanoseconds.
+         */
+        final long[] sent = new long[ShipPredictor.HISTORY];
+
+        /**
+         * The predicted ship, or null before the first ship state.
+         */
+        ShipPredictor predictor;
+
+        /**
+         * The handle of the ship of the client, or -1 before the welcome.
+         */
+        int ship = -1;
+
+        /**
+         * The arena width in meters, sent with the welcome.
+         */
+        float width;
+
+        /**
+         * The arena height in meters, sent with the welcome.
+         */
+        float height;
+
+        /**
+         * Number of steps of the client.
+         */
+        int tick;
+
+        /**
+         * The sequence number of the next input.
+         */
+        int sequence;
+
+        /**
+         * The last input the server applied, or -1.
+         */
+        int lastApplied = -1;
+
+        /**
+         * Number of snapshots received.
+         */
+        int snapshots;
+
+        /**
+         * Number of inputs the server applied.
+         */
+        int applied;
+
+        /**
+         * Sum of the time between sending each input and learning it was applied.
+         */
+        long roundTripNanos;
+
+        /**
+         * Number of server states compared with a prediction, once stopped.
+         */
+        int reconciliations;
+
+        /**
+         * Number of predictions corrected, once stopped.
+         */
+        int corrections;
+
+        /**
+         * Sum of the position errors corrected in meters, once stopped.
+         */
+        double correctedError;
+
+        /**
+         * Creates a client.
+         *
+         * @param connection the socket of the client
+         * @param id the number of the client
+         */
+        Bot(Connection connection, int id) {
+            this.connection = connection;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Connects clients to a server.
+     *
+     * @param port the port of the server, on this host
+     * @param count number of clients
+     * @throws IOException if a client could not connect
+     */
+    public BotClients(int port, int count) throws IOException {
+        selector = Selector.open();
+        bots = new Bot[count];
+        for (int i = 0; i < count; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            bots[i] = new Bot(new Connection(channel, channel.register(selector, SelectionKey.OP_READ)), i);
+            bots[i].connection.key.attach(bots[i]);
+        }
+    }
+
+    /**
+     * Delays every message sent and received. Must be called before starting.
+     *
+     * @param latencyMillis the minimum delay in each direction, in milliseconds
+     * @param jitterMillis the maximum delay added to the latency, in milliseconds
+     */
+    public void setLatency(int latencyMillis, int jitterMillis) {
+        latency = latencyMillis * 1000000L;
+        jitter = jitterMillis * 1000000L;
+    }
+
+    /**
+     * Makes the clients predict their ships. Must be called before starting.
+     *
+     * @param prediction should the clients predict their ships
+     */
+    public void setPrediction(boolean prediction) {
+        this.prediction = prediction;
+    }
+
+    /**
+     * Starts serving the clients.
+     */
+    public void start() {
+        thread = new Thread(this, "Bots");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops serving the clients and closes their sockets. Calling it
+     * again does nothing.
+     *
+     * @throws InterruptedException if interrupted while waiting for the clients to stop
+     */
+    public void stop() throws InterruptedException {
+        stopped = true;
+        selector.wakeup();
+        if (thread != null)
+            thread.join();
+        for (Bot bot : bots) {
+            bot.connection.close();
+            if (bot.predictor != null) {
+                bot.reconciliations += bot.predictor.getReconciliations();
+                bot.corrections += bot.predictor.getCorrections();
+                bot.correctedError += bot.predictor.getCorrectedError();
+                bot.predictor.dispose();
+                bot.predictor = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of clients that received their ship.
+     *
+     * @return the number of clients
+     */
+    public int getWelcomed() {
+        int welcomed = 0;
+        for (Bot bot : bots)
+            if (bot.ship != -1) welcomed++;
+        return welcomed;
+    }
+
+    /**
+     * Returns the number of snapshots received by every client.
+     *
+     * @return the number of snapshots
+     */
+    public long getSnapshots() {
+        long snapshots = 0;
+        for (Bot bot : bots)
+            snapshots += bot.snapshots;
+        return snapshots;
+    }
+
+    /**
+     * Returns the number of bytes received by every client.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesReceived() {
+        long bytes = 0;
+        for (Bot bot : bots)
+            bytes += bot.connection.getBytesReceived();
+        return bytes;
+    }
+
+    /**
+     * Describes how the clients predicted their ships. Must only be
+     * called after stopping the clients.
+     *
+     * @return the prediction statistics
+     */
+    public String getPredictionStats() {
+        long reconciliations = 0, corrections = 0, applied = 0, roundTrip = 0;
+        double error = 0;
+        for (Bot bot : bots) {
+            applied += bot.applied;
+            roundTrip += bot.roundTripNanos;
+            reconciliations += bot.reconciliations;
+            corrections += bot.corrections;
+            error += bot.correctedError;
+        }
+        return String.format("%d reconciliations, %d corrections (%.2f%%), %.3f m mean correction, %.1f ms mean input round trip",
+                reconciliations, corrections, reconciliations == 0 ? 0 : corrections * 100.0 / reconciliations,
+                corrections == 0 ? 0 : error / corrections, applied == 0 ? 0 : roundTrip / 1e6 / applied);
+    }
+
+    /**
+     * Throws the error that stopped the clients, if any.
+     *
+     * @throws IOException if the clients failed
+     */
+    public void checkFailure() throws IOException {
+        if (failure != null)
+            throw new IOException("The bots failed", failure);
+    }
+
+    /**
+     * Serves the clients until stopped, stepping each one every STEP seconds.
+     */
+    @Override
+    public void run() {
+        try {
+            long next = System.nanoTime();
+            while (!stopped) {
+                long wait = next - System.nanoTime();
+                if (wait > 0)
+                    selector.select(Math.max(1, Math.min(wait / 1000000, 5)));
+                else
+                    selector.selectNow();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    Bot bot = (Bot) key.attachment();
+                    if (key.isWritable())
+                        bot.connection.flush();
+                    if (key.isReadable())
+                        receive(bot);
+                }
+
+                long now = System.nanoTime();
+                boolean step = now >= next;
+                for (Bot bot : bots) {
+                    while (!bot.incoming.isEmpty() && bot.incoming.peek().due <= now)
+                        read(bot, bot.incoming.poll().message);
+                    if (step && bot.ship != -1 && (!prediction || bot.predictor != null))
+                        step(bot, now);
+                    while (!bot.outgoing.isEmpty() && bot.outgoing.peek().due <= now)
+                        bot.connection.send(bot.outgoing.poll().message);
+                }
+                if (step)
+                    next += SimulationThread.STEP_NANOS;
+            }
+        } catch (Throwable e) {
+            if (!stopped)
+                failure = e;
+        }
+    }
+
+    /**
+     * Receives the messages of the server, reading them right away or
+     * after a delay.
+     *
+     * @param bot the client
+     * @throws IOException if the socket failed or a message is invalid
+     */
+    private void receive(Bot bot) throws IOException {
+        if (!bot.connection.receive())
+            throw new IOException("The server closed the connection");
+
+        ByteBuffer message;
+        while ((message = bot.connection.next()) != null) {
+            if (latency == 0 && jitter == 0 && bot.incoming.isEmpty())
+                read(bot, message);
+            else
+                bot.incoming.add(delay(bot.incoming, copy(message)));
+        }
+    }
+
+    /**
+     * Reads a message of the server.
+     *
+     * @param bot the client
+     * @param message the message, positioned at its type
+     * @throws IOException if the message is invalid
+     */
+    private void read(Bot bot, ByteBuffer message) throws IOException {
+        byte type = message.get();
+        if (type == Protocol.WELCOME) {
+            bot.ship = message.getShort() & 0xFFFF;
+            bot.width = message.getFloat();
+            bot.height = message.getFloat();
+            bot.state = new ClientState(bot.width, bot.height);
+        } else if (type == Protocol.SHIP)
+            readShip(bot, message);
+        else if (type == Protocol.SNAPSHOT) {
+            bot.state.read(message);
+            bot.snapshots++;
+        } else
+            throw new ProtocolException("Unexpected message from server: " + type);
+    }
+
+    /**
+     * Reads the state of the ship of a client, reconciling its prediction.
+     *
+     * @param bot the client
+     * @param message the payload of the message
+     */
+    private void readShip(Bot bot, ByteBuffer message) {
+        int sequence = message.getInt();
+        float x = message.getFloat(), y = message.getFloat(), rotation = message.getFloat();
+        float vx = message.getFloat(), vy = message.getFloat(), omega = message.getFloat();
+
+        if (sequence > bot.lastApplied) {
+            long now = System.nanoTime();
+            for (int s = Math.max(bot.lastApplied + 1, sequence - ShipPredictor.HISTORY + 1); s <= sequence; s++) {
+                bot.roundTripNanos += now - bot.sent[s & (ShipPredictor.HISTORY - 1)];
+                bot.applied++;
+            }
+            bot.lastApplied = sequence;
+        }
+
+        if (!prediction) return;
+        if (bot.predictor == null)
+            bot.predictor = new ShipPredictor(bot.width, bot.height, x, y, rotation);
+        bot.predictor.reconcile(sequence, x, y, rotation, vx, vy, omega);
+    }
+
+    /**
+     * Steps a client: chooses its commands, which change every few
+     * seconds, predicts its ship and sends the commands with an
+     * acknowledgement of the last snapshot received.
+     *
+     * @param bot the client
+     * @param now the current time in nanoseconds
+     * @throws IOException if the socket failed
+     */
+    private void step(Bot bot, long now) throws IOException {
+        int tick = bot.tick++;
+        input.setRotation((float) Math.sin((tick + bot.id * 37) / 40.0));
+        input.setAccelerating((tick / 90 + bot.id) % 3 == 0);
+        input.setShooting((tick / 30 + bot.id) % 4 == 0);
+        Protocol.quantizeInput(input);
+
+        int sequence = bot.predictor != null ? bot.predictor.predict(input) : bot.sequence;
+        bot.sequence = sequence + 1;
+        bot.sent[sequence & (ShipPredictor.HISTORY - 1)] = now;
+
+        output.clear();
+        Protocol.writeInput(output, bot.state.getAck(), sequence, input.getRotation(), input.isAccelerating(), input.isShooting());
+        output.flip();
+        if (latency == 0 && jitter == 0 && bot.outgoing.isEmpty())
+            bot.connection.send(output);
+        else
+            bot.outgoing.add(delay(bot.outgoing, copy(output)));
+    }
+
+    /**
+     * Chooses when a message is delivered, never before the messages
+     * already waiting.
+     *
+     * @param queue the messages waiting
+     * @param message the message
+     * @return the delayed message
+     */
+    private Delayed delay(ArrayDeque<Delayed> queue, ByteBuffer message) {
+        long due = System.nanoTime() + latency + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+        if (!queue.isEmpty())
+            due = Math.max(due, queue.peekLast().due);
+        return new Delayed(due, message);
+    }
+
+    /**
+     * Copies the remaining bytes of a buffer.
+     *
+     * @param buffer the buffer
+     * @return the copy, ready to be read
+     */
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer);
+        copy.flip();
+        return copy;
+    }
+}
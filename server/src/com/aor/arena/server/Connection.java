@@ -0,0 +1,186 @@
+package com.aor.arena.server;
+
+import com.aor.arena.network.Protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A non-blocking socket exchanging length framed messages. Messages
+ * are read as they complete, and what the socket can not send right
+ * away is kept until it becomes writable.
+ */
+class Connection {
+    /**
+     * The socket.
+     */
+    final SocketChannel channel;
+
+    /**
+     * The registration of the socket with a selector.
+     */
+    final SelectionKey key;
+
+    /**
+     * The bytes received but not read yet, ready to be written to.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+
+    /**
+     * The last message read, ready to be read.
+     */
+    private ByteBuffer message = ByteBuffer.allocate(4096);
+
+    /**
+     * The bytes not sent yet, ready to be written to.
+     */
+    private ByteBuffer out = ByteBuffer.allocate(4096);
+
+    /**
+     * Number of bytes sent.
+     */
+    private long bytesSent;
+
+    /**
+     * Number of bytes received.
+     */
+    private long bytesReceived;
+
+    /**
+     * Creates a connection over a socket registered with a selector.
+     *
+     * @param channel the socket, in non-blocking mode
+     * @param key the registration of the socket
+     */
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Receives what the socket has available.
+     *
+     * @return false if the other end closed the socket
+     * @throws IOException if the socket failed
+     */
+    boolean receive() throws IOException {
+        int read = channel.read(in);
+        if (read > 0) bytesReceived += read;
+        return read >= 0;
+    }
+
+    /**
+     * Reads the next message received.
+     *
+     * @return the message, positioned at its type, or null if no message is complete
+     * @throws IOException if the message is invalid
+     */
+    ByteBuffer next() throws IOException {
+        in.flip();
+        int length = Protocol.available(in);
+        if (length == -1) {
+            if (in.remaining() >= 4 && in.getInt(in.position()) + 4 > in.capacity())
+                in = grow(in, in.getInt(in.position()) + 4);
+            else
+                in.compact();
+            return null;
+        }
+
+        if (length > message.capacity())
+            message = ByteBuffer.allocate(length);
+        message.clear();
+        in.position(in.position() + 4);
+        int limit = in.limit();
+        in.limit(in.position() + length);
+        message.put(in);
+        in.limit(limit);
+        in.compact();
+        message.flip();
+        return message;
+    }
+
+    /**
+     * Sends messages, keeping what can not be sent right away.
+     *
+     * @param data the messages, ready to be read
+     * @throws IOException if the socket failed
+     */
+    void send(ByteBuffer data) throws IOException {
+        if (!hasPending())
+            bytesSent += channel.write(data);
+        if (!data.hasRemaining()) return;
+
+        if (data.remaining() > out.remaining()) {
+            out.flip();
+            out = grow(out, out.remaining() + data.remaining());
+        }
+        out.put(data);
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Sends what was kept, once the socket becomes writable.
+     *
+     * @throws IOException if the socket failed
+     */
+    void flush() throws IOException {
+        out.flip();
+        bytesSent += channel.write(out);
+        out.compact();
+        if (!hasPending())
+            key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Verifies if some bytes are waiting to be sent.
+     *
+     * @return true if the socket was not able to send everything
+     */
+    boolean hasPending() {
+        return out.position() > 0;
+    }
+
+    /**
+     * Returns the number of bytes sent.
+     *
+     * @return the number of bytes
+     */
+    long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns the number of bytes received.
+     *
+     * @return the number of bytes
+     */
+    long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Closes the socket.
+     */
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Copies the contents of a buffer into a larger one.
+     *
+     * @param buffer the buffer, ready to be read
+     * @param capacity the minimum capacity of the new buffer
+     * @return the new buffer, ready to be written to
+     */
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+        grown.put(buffer);
+        return grown;
+    }
+}
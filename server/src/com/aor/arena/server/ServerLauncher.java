@@ -0,0 +1,89 @@
+package com.aor.arena.server;
+
+import com.aor.arena.controller.GameController;
+import com.aor.arena.model.ArenaConfig;
+import com.aor.arena.model.GameModel;
+import com.aor.arena.network.InterestFilter;
+import com.aor.arena.network.Protocol;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Runs an arena server and reports how long each tick takes and how
+ * many bytes each client receives.
+ *
+ * Usage: ServerLauncher [--port N] [--ticks N] [--seed N] [--bots N] [--full-state]
+ *                       [--predict] [--latency MS] [--jitter MS] [--config FILE]
+ *
+ * Zero ticks (the default) runs until killed. With bots, that many
+ * scripted clients connect over the loopback interface and play in
+ * the arena, and the statistics only count the ticks after they all
+ * joined. Each client only receives the entities near its ship,
+ * unless --full-state is given.
+ *
+ * Bots can predict their ships, and their messages can be delayed by a
+ * latency and a random jitter in each direction, to measure how often
+ * predictions are corrected.
+ *
+ * A configuration file, holding an ArenaConfig as JSON, changes the
+ * arena, which can then be much larger than the default one.
+ */
+public class ServerLauncher {
+	public static void main (String[] arg) throws Exception {
+		int port = Protocol.DEFAULT_PORT, ticks = 0, botCount = 0;
+		int latency = 0, jitter = 0;
+		boolean fullState = false, prediction = false;
+		Long seed = null;
+		ArenaConfig config = new ArenaConfig();
+
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("--port")) port = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--ticks")) ticks = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--seed")) seed = Long.parseLong(arg[++i]);
+			else if (arg[i].equals("--bots")) botCount = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--full-state")) fullState = true;
+			else if (arg[i].equals("--predict")) prediction = true;
+			else if (arg[i].equals("--latency")) latency = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--jitter")) jitter = Integer.parseInt(arg[++i]);
+			else if (arg[i].equals("--config")) config = ArenaConfig.fromJson(new FileHandle(arg[++i]).readString("UTF-8"));
+			else throw new IllegalArgumentException("Unknown argument: " + arg[i]);
+		}
+
+		GameModel model = seed != null ? new GameModel(config, seed) : new GameModel(config);
+		GameController controller = new GameController(model);
+		ArenaServer server = new ArenaServer(controller, port);
+		if (!fullState)
+			server.setInterestFilter(new InterestFilter(config.getWidth(), config.getHeight()));
+		System.out.println("listening on port " + server.getPort());
+
+		BotClients bots = null;
+		try {
+			if (botCount > 0) {
+				bots = new BotClients(server.getPort(), botCount);
+				bots.setLatency(latency, jitter);
+				bots.setPrediction(prediction);
+				bots.start();
+				while (server.getClientCount() < botCount || bots.getWelcomed() < botCount) {
+					server.tick();
+					bots.checkFailure();
+				}
+				server.getStats().reset();
+			}
+
+			server.run(ticks);
+			System.out.println(server.getStats());
+
+			if (bots != null) {
+				bots.stop();
+				bots.checkFailure();
+				System.out.println(String.format("bots: %d snapshots, %.1f bytes/snapshot received",
+						bots.getSnapshots(), bots.getSnapshots() == 0 ? 0 : (double) bots.getBytesReceived() / bots.getSnapshots()));
+				System.out.println("prediction: " + bots.getPredictionStats());
+			}
+		} finally {
+			if (bots != null)
+				bots.stop();
+			server.close();
+			controller.dispose();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.aor.arena.server;
+
+/**
+ * What an arena server measured: how long each tick took, split between
+ * simulating and sending snapshots, and how many bytes were sent.
+ */
+public class ServerStats {
+    /**
+     * Number of ticks measured.
+     */
+    private long ticks;
+
+    /**
+     * Wall time spent simulating and serving clients in nanoseconds.
+     */
+    private long stepNanos;
+
+    /**
+     * Wall time spent capturing, encoding and sending snapshots in nanoseconds.
+     */
+    private long sendNanos;
+
+    /**
+     * Wall time of the slowest tick in nanoseconds.
+     */
+    private long maxNanos;
+
+    /**
+     * Sum of the number of clients connected at each tick.
+     */
+    private long clientTicks;
+
+    /**
+     * Number of snapshots skipped because a socket was still busy.
+     */
+    private long skipped;
+
+    /**
+     * Number of snapshot bytes sent.
+     */
+    private long bytes;
+
+    /**
+     * Records a tick.
+     *
+     * @param stepNanos wall time spent simulating and serving clients
+     * @param sendNanos wall time spent capturing, encoding and sending snapshots
+     * @param clients number of connected clients
+     * @param skipped number of clients whose snapshot was skipped
+     * @param bytes number of snapshot bytes sent
+     */
+    void record(long stepNanos, long sendNanos, int clients, int skipped, long bytes) {
+        ticks++;
+        this.stepNanos += stepNanos;
+        this.sendNanos += sendNanos;
+        maxNanos = Math.max(maxNanos, stepNanos + sendNanos);
+        clientTicks += clients;
+        this.skipped += skipped;
+        this.bytes += bytes;
+    }
+
+    /**
+     * Forgets every tick recorded so far, to leave warm up out.
+     */
+    public void reset() {
+        ticks = stepNanos = sendNanos = maxNanos = clientTicks = skipped = bytes = 0;
+    }
+
+    /**
+     * Returns the number of ticks measured.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the mean wall time per tick.
+     *
+     * @return the mean wall time per tick in microseconds
+     */
+    public double getMeanMicros() {
+        return ticks == 0 ? 0 : (stepNanos + sendNanos) / 1e3 / ticks;
+    }
+
+    /**
+     * Returns the mean number of snapshot bytes sent to each client per tick.
+     *
+     * @return the bytes per client per tick
+     */
+    public double getBytesPerClientTick() {
+        return clientTicks == 0 ? 0 : (double) bytes / clientTicks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks, %.1f us/tick (step %.1f us, send %.1f us, max %.1f us), %.1f clients, %.1f bytes/client/tick, %d skipped",
+                ticks, getMeanMicros(), ticks == 0 ? 0 : stepNanos / 1e3 / ticks, ticks == 0 ? 0 : sendNanos / 1e3 / ticks,
+                maxNanos / 1e3, ticks == 0 ? 0 : (double) clientTicks / ticks, getBytesPerClientTick(), skipped);
+    }
+}